@@ -1,11 +1,24 @@
 package io.github.mcengine.mccraft.api.database;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Database interface for MCCraft item/recipe storage.
+ * <p>
+ * Recipe contents are stored as binary. The String methods exchange them as
+ * Base64 for compatibility and convert on the way in and out; the
+ * {@link StoredItem} methods skip that step. Rows written by older versions
+ * as Base64 text stay readable through both until {@link #migrateLegacyItems}
+ * has converted them.
+ * <p>
+ * The binary methods have defaults built on the Base64 methods, so an
+ * implementation that only stores Base64 keeps working unchanged.
  */
 public interface IMCCraftDB {
 
@@ -21,7 +34,7 @@ public interface IMCCraftDB {
      *
      * @param id       the unique item identifier
      * @param type     the station type (e.g., "default" or a custom type)
-     * @param contents the Base64-encoded recipe contents
+     * @param contents the Base64-encoded recipe contents, stored as binary
      * @throws SQLException if a database access error occurs
      */
     void upsertItem(String id, String type, String contents) throws SQLException;
@@ -60,6 +73,123 @@ public interface IMCCraftDB {
      */
     void deleteItem(String id) throws SQLException;
 
+    /**
+     * Inserts or updates many item records. The built-in backends do this in a single
+     * transaction; the default writes the records one by one through {@link #upsertItem}.
+     *
+     * @param rows the records, each a map with id, type and contents keys
+     * @throws SQLException if a database access error occurs
+     */
+    default void upsertItems(Collection<Map<String, String>> rows) throws SQLException {
+        for (Map<String, String> row : rows) {
+            upsertItem(row.get("id"), row.get("type"), row.get("contents"));
+        }
+    }
+
+    /**
+     * Deletes many item records. The built-in backends do this in a single
+     * transaction; the default deletes the records one by one through {@link #deleteItem}.
+     *
+     * @param ids the unique item identifiers
+     * @throws SQLException if a database access error occurs
+     */
+    default void deleteItems(Collection<String> ids) throws SQLException {
+        for (String id : ids) {
+            deleteItem(id);
+        }
+    }
+
+    // --- Binary Item Methods ---
+
+    /**
+     * Retrieves an item record by its id, with binary contents.
+     *
+     * @param id the unique item identifier
+     * @return the record, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    default StoredItem getStoredItem(String id) throws SQLException {
+        Map<String, String> row = getItem(id);
+        return row == null ? null : toStoredItem(row);
+    }
+
+    /**
+     * Retrieves all item records for a given type, with binary contents.
+     *
+     * @param type the station type
+     * @return the records
+     * @throws SQLException if a database access error occurs
+     */
+    default List<StoredItem> getStoredItemsByType(String type) throws SQLException {
+        return toStoredItems(getItemsByType(type));
+    }
+
+    /**
+     * Retrieves all item records, with binary contents.
+     *
+     * @return the records
+     * @throws SQLException if a database access error occurs
+     */
+    default List<StoredItem> getAllStoredItems() throws SQLException {
+        return toStoredItems(getAllItems());
+    }
+
+    /**
+     * Inserts or updates many item records with binary contents. The built-in backends
+     * do this in a single transaction; the default encodes the records to Base64 and
+     * goes through {@link #upsertItems}, row by row unless that is overridden.
+     *
+     * @param items the records
+     * @throws SQLException if a database access error occurs
+     */
+    default void upsertStoredItems(Collection<StoredItem> items) throws SQLException {
+        List<Map<String, String>> rows = new ArrayList<>(items.size());
+        for (StoredItem item : items) {
+            Map<String, String> row = new HashMap<>();
+            row.put("id", item.getId());
+            row.put("type", item.getType());
+            row.put("contents", item.getContents() == null ? null : Base64.getEncoder().encodeToString(item.getContents()));
+            rows.add(row);
+        }
+        upsertItems(rows);
+    }
+
+    /**
+     * Converts one batch of legacy Base64 rows to binary, in one transaction.
+     * Rows are visited in id order; pass the returned id back in to continue.
+     * Rows whose Base64 cannot be decoded are left as they are.
+     *
+     * @param afterId   the last id returned by the previous batch, or null to start
+     * @param batchSize the maximum number of rows to convert
+     * @return the last id visited, or null once no legacy rows remain after {@code afterId};
+     *         the default has no legacy format and returns null
+     * @throws SQLException if a database access error occurs
+     */
+    default String migrateLegacyItems(String afterId, int batchSize) throws SQLException {
+        return null;
+    }
+
+    private static List<StoredItem> toStoredItems(List<Map<String, String>> rows) {
+        List<StoredItem> items = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            items.add(toStoredItem(row));
+        }
+        return items;
+    }
+
+    private static StoredItem toStoredItem(Map<String, String> row) {
+        byte[] contents = null;
+        String base64 = row.get("contents");
+        if (base64 != null && !base64.isEmpty()) {
+            try {
+                contents = Base64.getDecoder().decode(base64);
+            } catch (IllegalArgumentException e) {
+                // Unreadable contents, like ItemSerializer treats them
+            }
+        }
+        return new StoredItem(row.get("id"), row.get("type"), contents);
+    }
+
     // --- Type Table Methods ---
 
     /**
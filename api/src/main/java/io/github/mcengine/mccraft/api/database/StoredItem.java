@@ -0,0 +1,31 @@
+package io.github.mcengine.mccraft.api.database;
+
+/**
+ * An item/recipe record with its contents in binary form, as stored in the
+ * {@code contents_data} column.
+ */
+public final class StoredItem {
+
+    private final String id;
+    private final String type;
+    private final byte[] contents;
+
+    /**
+     * @param id       the unique item identifier
+     * @param type     the station type
+     * @param contents the serialized recipe contents (not Base64), or null if unreadable
+     */
+    public StoredItem(String id, String type, byte[] contents) {
+        this.id = id;
+        this.type = type;
+        this.contents = contents;
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+
+    /**
+     * Gets the serialized recipe contents. The array is shared and must not be modified.
+     */
+    public byte[] getContents() { return contents; }
+}
@@ -1,22 +1,44 @@
 package io.github.mcengine.mccraft.common;
 
 import io.github.mcengine.mccraft.api.database.IMCCraftDB;
+import io.github.mcengine.mccraft.api.database.StoredItem;
 import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
 import io.github.mcengine.mccraft.common.listener.MCCraftListenerManager;
+import io.github.mcengine.mccraft.common.util.ItemSerializer;
+import io.github.mcengine.mccraft.common.util.MCCraftMetrics;
+import org.bukkit.inventory.ItemStack;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Central provider / singleton for the MCCraft system.
  * Wraps all database operations in async futures and holds references
  * to the command and listener managers.
+ * <p>
+ * With write-behind enabled (see {@link #configureWriteBehind}), recipe saves and
+ * deletes update the cache immediately and are queued per recipe id, the last
+ * write winning. The queue is flushed on an interval, when it reaches a size
+ * threshold, before any read that bypasses the cache, and on {@link #shutdown()}.
+ * The futures of queued saves and deletes complete only once their write reached
+ * the database, so callers never report a save that could still be lost.
  */
 public class MCCraftProvider {
 
@@ -25,6 +47,17 @@ public class MCCraftProvider {
     private final Executor asyncExecutor;
     private final MCCraftCommandManager commandManager;
     private final MCCraftListenerManager listenerManager;
+    private CompletableFuture<Long> reloadInFlight;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> typeLoadsInFlight = new ConcurrentHashMap<>();
+
+    /** Queued recipe writes by id, oldest first (guarded by itself). */
+    private final LinkedHashMap<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    /** Serializes flushes so queued writes reach the database in order. */
+    private final Object flushLock = new Object();
+    private volatile boolean writeBehind;
+    private volatile int maxPendingWrites;
+    private ScheduledExecutorService flushScheduler;
+    private volatile Logger logger = Logger.getLogger("MCCraft");
 
     public MCCraftProvider(IMCCraftDB db, Executor asyncExecutor, MCCraftCommandManager commandManager, MCCraftListenerManager listenerManager) {
         this.db = db;
@@ -39,22 +72,267 @@ public class MCCraftProvider {
      * Should be called once after construction, on an async thread.
      */
     public CompletableFuture<Void> populateCache() {
-        return runAsync(() -> {
+        return reloadCache().thenApply(epoch -> null);
+    }
+
+    /**
+     * Rebuilds the whole in-memory cache from the database off the main thread and
+     * publishes it with a single atomic swap. Players keep matching against the
+     * previous recipes until the swap. A reload requested while another is running
+     * joins the running one.
+     *
+     * @return a future completing with the epoch of the published cache generation
+     */
+    public synchronized CompletableFuture<Long> reloadCache() {
+        if (reloadInFlight != null && !reloadInFlight.isDone()) {
+            return reloadInFlight;
+        }
+        RecipeCache cache = RecipeCache.getInstance();
+        cache.beginReload();
+        reloadInFlight = runAsync(() -> {
             try {
-                RecipeCache cache = RecipeCache.getInstance();
-                cache.loadRecipes(db.getAllItems());
-                cache.loadTypes(db.getAllTypesWithHeadItems());
+                flushPendingWrites();
+                return cache.completeReload(db.getAllStoredItems(), db.getAllTypesWithHeadItems());
             } catch (SQLException e) {
+                cache.abortReload();
                 throw new RuntimeException(e);
+            } catch (RuntimeException e) {
+                cache.abortReload();
+                throw e;
             }
-            return null;
         });
+        return reloadInFlight;
+    }
+
+    /**
+     * Makes a type's recipes resident in the cache, reading them from the database
+     * if the type was evicted. Concurrent requests for the same type share one read.
+     *
+     * @param type the station type
+     * @return a future completing once the type is resident
+     */
+    public CompletableFuture<Void> loadType(String type) {
+        final String normalizedType = normalizeType(type);
+        RecipeCache cache = RecipeCache.getInstance();
+        if (cache.isResident(normalizedType)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> load = typeLoadsInFlight.computeIfAbsent(normalizedType, t -> runAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                flushPendingWrites();
+                cache.loadType(t, db.getStoredItemsByType(t));
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            MCCraftMetrics.getInstance().recordTypeLoad(System.nanoTime() - started);
+            return null;
+        }));
+        load.whenComplete((ignored, ex) -> typeLoadsInFlight.remove(normalizedType, load));
+        return load;
     }
 
     public static MCCraftProvider getInstance() {
         return instance;
     }
 
+    /**
+     * Sets the logger that failed background writes are reported to.
+     *
+     * @param logger the plugin logger
+     */
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Enables write-behind for recipe saves and deletes. Either way a save's future
+     * completes once the database holds it; write-behind delays that by up to one
+     * flush interval in exchange for coalescing repeated saves of a recipe.
+     *
+     * @param flushIntervalMillis how often queued writes are flushed; 0 or less disables write-behind
+     * @param maxPending          queue size that triggers an early flush
+     */
+    public synchronized void configureWriteBehind(long flushIntervalMillis, int maxPending) {
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+            flushScheduler = null;
+        }
+        this.maxPendingWrites = Math.max(1, maxPending);
+        this.writeBehind = flushIntervalMillis > 0;
+        if (!writeBehind) {
+            flushWrites();
+            return;
+        }
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MCCraft-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flushPendingWrites();
+            } catch (SQLException | RuntimeException e) {
+                // Already logged with the affected recipe ids; the writes stay queued
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes every queued recipe save and delete to the database.
+     *
+     * @return a future completing once the queue drained
+     */
+    public CompletableFuture<Void> flushWrites() {
+        return runAsync(() -> {
+            try {
+                flushPendingWrites();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Converts recipes stored as Base64 text by older versions to binary, one
+     * batch per async task so the database stays available in between. Legacy
+     * rows remain readable until converted.
+     *
+     * @param batchSize rows converted per transaction
+     * @return a future completing with the number of batches run once no legacy rows remain
+     */
+    public CompletableFuture<Integer> migrateLegacyItems(int batchSize) {
+        return migrateLegacyItems(null, Math.max(1, batchSize), 0);
+    }
+
+    private CompletableFuture<Integer> migrateLegacyItems(String afterId, int batchSize, int batches) {
+        return runAsync(() -> {
+            try {
+                return db.migrateLegacyItems(afterId, batchSize);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }).thenCompose(lastId -> lastId == null
+                ? CompletableFuture.completedFuture(batches)
+                : migrateLegacyItems(lastId, batchSize, batches + 1));
+    }
+
+    /**
+     * Gets the number of recipe writes waiting to be flushed.
+     */
+    public int getPendingWriteCount() {
+        synchronized (pendingWrites) {
+            return pendingWrites.size();
+        }
+    }
+
+    /**
+     * Queues a write, replacing any queued write of the same id, and starts an
+     * early flush once the queue reaches its size threshold.
+     *
+     * @return a future completing once the write, or a newer one of the same id, is in the database
+     */
+    private CompletableFuture<Void> enqueueWrite(PendingWrite write) {
+        boolean full;
+        synchronized (pendingWrites) {
+            // Re-inserting moves the id to the back, keeping the queue in last-write order
+            PendingWrite replaced = pendingWrites.remove(write.id);
+            if (replaced != null) {
+                // The replaced write is durable exactly when the one superseding it is
+                write.flushed.whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        replaced.flushed.completeExceptionally(ex);
+                    } else {
+                        replaced.flushed.complete(null);
+                    }
+                });
+            }
+            pendingWrites.put(write.id, write);
+            full = pendingWrites.size() >= maxPendingWrites;
+            MCCraftMetrics.getInstance().recordWriteQueued(replaced != null);
+        }
+        if (full) {
+            // Failures are logged by the flush and reported through the writes' futures
+            flushWrites();
+        }
+        return write.flushed;
+    }
+
+    /**
+     * Drains the queue into the database on the calling thread, as one batched
+     * transaction for saves and then one for deletes. A flush can therefore be
+     * partly applied: if the deletes fail, the saves stay committed and their
+     * futures complete. Writes that fail are logged with their recipe ids, fail
+     * their futures, and are put back unless a newer write of the same id was
+     * queued meanwhile.
+     */
+    private void flushPendingWrites() throws SQLException {
+        synchronized (flushLock) {
+            List<PendingWrite> batch;
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) return;
+                batch = new ArrayList<>(pendingWrites.values());
+                pendingWrites.clear();
+            }
+            List<StoredItem> upserts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            for (PendingWrite write : batch) {
+                if (write.contents == null) {
+                    deletes.add(write.id);
+                } else {
+                    upserts.add(new StoredItem(write.id, write.type, write.contents));
+                }
+            }
+            // Each id appears once, so saves and deletes can go in separate transactions
+            boolean upserted = false;
+            boolean deleted = false;
+            try {
+                db.upsertStoredItems(upserts);
+                upserted = true;
+                // The saves are durable now, whatever happens to the deletes
+                for (PendingWrite write : batch) {
+                    if (write.contents != null) write.flushed.complete(null);
+                }
+                db.deleteItems(deletes);
+                deleted = true;
+            } catch (SQLException | RuntimeException e) {
+                List<PendingWrite> failed = new ArrayList<>();
+                for (PendingWrite write : batch) {
+                    if (!upserted || write.contents == null) failed.add(write);
+                }
+                List<String> failedIds = new ArrayList<>(failed.size());
+                synchronized (pendingWrites) {
+                    for (PendingWrite write : failed) {
+                        pendingWrites.putIfAbsent(write.id, write);
+                        failedIds.add(write.id);
+                    }
+                }
+                logger.log(Level.SEVERE, "Failed to write recipes " + failedIds
+                        + " to the database; they stay queued for the next flush", e);
+                for (PendingWrite write : failed) {
+                    write.flushed.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                MCCraftMetrics.getInstance().recordWriteFlush(
+                        (upserted ? upserts.size() : 0) + (deleted ? deletes.size() : 0));
+            }
+            for (PendingWrite write : batch) {
+                if (write.contents == null) write.flushed.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Gets the queued write of a recipe id, or null if none is queued.
+     */
+    private PendingWrite pendingWrite(String id) {
+        synchronized (pendingWrites) {
+            return pendingWrites.get(id);
+        }
+    }
+
     private <T> CompletableFuture<T> runAsync(Supplier<T> supplier) {
         return CompletableFuture.supplyAsync(supplier, asyncExecutor);
     }
@@ -73,21 +351,44 @@ public class MCCraftProvider {
 
     // --- Async Database Wrappers ---
 
+    /**
+     * Saves a recipe from Base64 contents.
+     *
+     * @see #saveItem(String, String, byte[])
+     */
     public CompletableFuture<Void> saveItem(String id, String type, String contents) {
+        return saveItem(id, type, ItemSerializer.bytesFromBase64(contents));
+    }
+
+    /**
+     * Saves a recipe from its serialized contents. The cache holds the recipe at
+     * once; the future completes once the database does, which with write-behind
+     * is after the next flush.
+     */
+    public CompletableFuture<Void> saveItem(String id, String type, byte[] contents) {
         final String normalizedType = normalizeType(type);
         return runAsync(() -> {
+            if (writeBehind) {
+                RecipeCache.getInstance().putRecipe(id, normalizedType, contents);
+                return enqueueWrite(new PendingWrite(id, normalizedType, contents));
+            }
             try {
-                db.upsertItem(id, normalizedType, contents);
+                db.upsertStoredItems(List.of(new StoredItem(id, normalizedType, contents)));
                 RecipeCache.getInstance().putRecipe(id, normalizedType, contents);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-            return null;
-        });
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(durable -> durable);
     }
 
+    /**
+     * Reads a recipe row, seeing queued writes that were not flushed yet.
+     */
     public CompletableFuture<Map<String, String>> getItem(String id) {
         return runAsync(() -> {
+            PendingWrite pending = pendingWrite(id);
+            if (pending != null) return pending.toRow();
             try {
                 return db.getItem(id);
             } catch (SQLException e) {
@@ -100,6 +401,7 @@ public class MCCraftProvider {
         final String normalizedType = normalizeType(type);
         return runAsync(() -> {
             try {
+                flushPendingWrites();
                 return db.getItemsByType(normalizedType);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
@@ -110,6 +412,7 @@ public class MCCraftProvider {
     public CompletableFuture<List<String>> getTypes() {
         return runAsync(() -> {
             try {
+                flushPendingWrites();
                 return db.getTypes();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
@@ -117,16 +420,25 @@ public class MCCraftProvider {
         });
     }
 
+    /**
+     * Deletes a recipe. With write-behind the delete replaces any queued save of
+     * the same id, so a recipe saved and deleted between flushes is never written;
+     * the future completes once the delete reached the database.
+     */
     public CompletableFuture<Void> deleteItem(String id) {
         return runAsync(() -> {
+            if (writeBehind) {
+                RecipeCache.getInstance().removeRecipe(id);
+                return enqueueWrite(new PendingWrite(id, null, null));
+            }
             try {
                 db.deleteItem(id);
                 RecipeCache.getInstance().removeRecipe(id);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-            return null;
-        });
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(durable -> durable);
     }
 
     // --- Async Type Table Wrappers ---
@@ -144,8 +456,15 @@ public class MCCraftProvider {
         });
     }
 
+    /**
+     * Checks if a type exists, answered from the cache when it knows; a hit is always
+     * final, a miss only when the cache is authoritative.
+     */
     public CompletableFuture<Boolean> typeExists(String type) {
         final String normalizedType = normalizeType(type);
+        RecipeCache cache = RecipeCache.getInstance();
+        if (cache.typeExists(normalizedType)) return CompletableFuture.completedFuture(true);
+        if (cache.isAuthoritative()) return CompletableFuture.completedFuture(false);
         return runAsync(() -> {
             try {
                 return db.typeExists(normalizedType);
@@ -155,6 +474,36 @@ public class MCCraftProvider {
         });
     }
 
+    /**
+     * Gets a copy of a type's decoded head item, from the cache when it knows.
+     * Falls back to reading and decoding the database row.
+     *
+     * @return the head item, or null if the type does not exist
+     */
+    public CompletableFuture<ItemStack> getTypeHeadItemStack(String type) {
+        final String normalizedType = normalizeType(type);
+        RecipeCache cache = RecipeCache.getInstance();
+        ItemStack cached = cache.getTypeHeadItemStack(normalizedType);
+        if (cached != null) return CompletableFuture.completedFuture(cached.clone());
+        if (cache.isAuthoritative()) return CompletableFuture.completedFuture(null);
+        return getTypeHeadItem(normalizedType).thenApply(ItemSerializer::fromBase64);
+    }
+
+    /**
+     * Checks if a recipe id exists, answered from the cache when it knows. An evicted
+     * type is read back first, since the cache only holds ids of resident types.
+     */
+    public CompletableFuture<Boolean> itemExists(String id, String type) {
+        final String normalizedType = normalizeType(type);
+        RecipeCache cache = RecipeCache.getInstance();
+        if (cache.getRecipe(id) != null) return CompletableFuture.completedFuture(true);
+        if (cache.isAuthoritative()) {
+            if (cache.isResident(normalizedType)) return CompletableFuture.completedFuture(false);
+            return loadType(normalizedType).thenApply(ignored -> cache.getRecipe(id) != null);
+        }
+        return getItem(id).thenApply(Objects::nonNull);
+    }
+
     public CompletableFuture<String> getTypeHeadItem(String type) {
         final String normalizedType = normalizeType(type);
         return runAsync(() -> {
@@ -180,8 +529,52 @@ public class MCCraftProvider {
         return type == null ? null : type.toLowerCase(Locale.ROOT);
     }
 
+    /**
+     * Drains queued writes and closes the database.
+     */
     public void shutdown() {
-        if (db != null) db.close();
+        synchronized (this) {
+            if (flushScheduler != null) {
+                flushScheduler.shutdown();
+                flushScheduler = null;
+            }
+        }
+        if (db != null) {
+            try {
+                flushPendingWrites();
+            } catch (SQLException | RuntimeException e) {
+                // Already logged with the affected recipe ids
+            }
+            db.close();
+        }
         instance = null;
     }
+
+    /**
+     * A queued recipe save, or a delete when {@code contents} is null.
+     */
+    private static final class PendingWrite {
+        private final String id;
+        private final String type;
+        private final byte[] contents;
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        PendingWrite(String id, String type, byte[] contents) {
+            this.id = id;
+            this.type = type;
+            this.contents = contents;
+        }
+
+        /**
+         * Gets the row the database will hold once this write is flushed, or null for a delete.
+         */
+        Map<String, String> toRow() {
+            if (contents == null) return null;
+            Map<String, String> row = new HashMap<>();
+            row.put("id", id);
+            row.put("type", type);
+            row.put("contents", Base64.getEncoder().encodeToString(contents));
+            return row;
+        }
+    }
 }
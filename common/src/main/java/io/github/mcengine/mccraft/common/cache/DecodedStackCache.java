@@ -0,0 +1,63 @@
+package io.github.mcengine.mccraft.common.cache;
+
+import io.github.mcengine.mccraft.common.cache.RecipeCache.CachedRecipe;
+import io.github.mcengine.mccraft.common.util.ItemSerializer;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of fully deserialized recipe ItemStacks.
+ * <p>
+ * Cached recipes only keep their raw serialized payload; the 9 grid stacks and the
+ * result are deserialized here on first use (match, edit or display) and evicted
+ * least-recently-used once {@link #setCapacity(int) capacity} recipes are held.
+ * Entries are keyed by recipe instance, so a saved recipe never sees stale stacks.
+ */
+final class DecodedStackCache {
+
+    /** Default number of recipes whose stacks are kept deserialized. */
+    static final int DEFAULT_CAPACITY = 512;
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    private final LinkedHashMap<CachedRecipe, ItemStack[]> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CachedRecipe, ItemStack[]> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /**
+     * Returns the 10 decoded stacks of a recipe (9 grid slots + result), deserializing on a miss.
+     * The returned array is shared and must not be modified.
+     */
+    ItemStack[] get(CachedRecipe recipe) {
+        synchronized (this) {
+            ItemStack[] stacks = entries.get(recipe);
+            if (stacks != null) return stacks;
+        }
+        // Deserialize outside the lock; a concurrent miss on the same recipe just decodes twice
+        ItemStack[] stacks = new ItemStack[10];
+        ItemStack[] decoded = ItemSerializer.arrayFromBytes(recipe.getPayload());
+        if (decoded != null && decoded.length >= 10) {
+            System.arraycopy(decoded, 0, stacks, 0, 10);
+        }
+        synchronized (this) {
+            entries.put(recipe, stacks);
+        }
+        return stacks;
+    }
+
+    synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        while (entries.size() > this.capacity) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
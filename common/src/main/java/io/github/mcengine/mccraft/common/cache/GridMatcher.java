@@ -0,0 +1,135 @@
+package io.github.mcengine.mccraft.common.cache;
+
+import io.github.mcengine.mccraft.common.cache.RecipeCache.CachedRecipe;
+import io.github.mcengine.mccraft.common.util.GUIConstants;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Incremental recipe matcher owned by one crafting session (main thread only).
+ * <p>
+ * The matcher keeps the session's {@link PackedGrid} together with the current
+ * candidate set: the recipes sharing the grid's material signature, plus one
+ * deficit bitmask per candidate (bit i set while slot i holds less than the
+ * candidate needs). {@link #update(Inventory, int)} re-reads only the dirty slots:
+ * <ul>
+ *   <li>amount-only changes re-evaluate the dirty slots' amount constraints of each candidate;</li>
+ *   <li>a material change patches that slot's packed bits and re-probes the type index once.</li>
+ * </ul>
+ * Neither path depends on the number of recipes of the type. A new snapshot of the
+ * type (save, delete, reload, eviction) resets the candidate set on the next update.
+ */
+public final class GridMatcher {
+
+    private static final CachedRecipe[] NO_CANDIDATES = new CachedRecipe[0];
+
+    private final String type;
+    private final PackedGrid grid = new PackedGrid();
+
+    /** Snapshot the candidates were taken from; a different published snapshot invalidates them. */
+    private TypeSnapshot snapshot;
+    private CachedRecipe[] candidates = NO_CANDIDATES;
+    private int[] deficits = new int[0];
+    private boolean signatureDirty = true;
+    private boolean primed;
+
+    public GridMatcher(String type) {
+        this.type = type;
+    }
+
+    public String getType() { return type; }
+
+    /**
+     * Gets the grid as of the last update. Amounts are valid for the slots read so far.
+     */
+    public PackedGrid getGrid() { return grid; }
+
+    /**
+     * Forgets all state, so the next update reads every slot again.
+     */
+    public void reset() {
+        snapshot = null;
+        candidates = NO_CANDIDATES;
+        signatureDirty = true;
+        primed = false;
+    }
+
+    /**
+     * Re-reads the given recipe slots from the inventory and returns the current match.
+     *
+     * @param inv       the crafting GUI inventory
+     * @param dirtyMask grid-index bitmask of slots that may have changed
+     *                  ({@link GUIConstants#ALL_RECIPE_SLOTS} to re-read everything);
+     *                  the first update always reads every slot
+     * @return the first candidate whose amounts are satisfied, or null
+     */
+    public CachedRecipe update(Inventory inv, int dirtyMask) {
+        if (!primed) {
+            dirtyMask = GUIConstants.ALL_RECIPE_SLOTS;
+            primed = true;
+        }
+        int amountsChanged = 0;
+        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
+        for (int i = 0; i < 9; i++) {
+            if ((dirtyMask & (1 << i)) == 0) continue;
+            ItemStack item = inv.getItem(recipeSlots[i]);
+            if (item != null && item.getType() == Material.RED_STAINED_GLASS_PANE) item = null;
+            short material = grid.getMaterial(i);
+            int amount = grid.getAmount(i);
+            grid.setSlot(i, item);
+            if (grid.getMaterial(i) != material) {
+                signatureDirty = true;
+            } else if (grid.getAmount(i) != amount) {
+                amountsChanged |= 1 << i;
+            }
+        }
+
+        TypeSnapshot live = RecipeCache.getInstance().snapshot(type);
+        if (live != snapshot) {
+            snapshot = live;
+            signatureDirty = true;
+        }
+
+        if (signatureDirty) {
+            reprobe();
+        } else if (amountsChanged != 0) {
+            for (int c = 0; c < candidates.length; c++) {
+                deficits[c] = recheck(candidates[c].getPattern(), deficits[c], amountsChanged);
+            }
+        }
+
+        for (int c = 0; c < candidates.length; c++) {
+            if (deficits[c] == 0) return candidates[c];
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the candidates for the current signature and evaluates every constraint.
+     */
+    private void reprobe() {
+        signatureDirty = false;
+        CachedRecipe[] found = snapshot == null ? null : snapshot.candidates(grid);
+        candidates = found == null ? NO_CANDIDATES : found;
+        if (deficits.length < candidates.length) deficits = new int[candidates.length];
+        for (int c = 0; c < candidates.length; c++) {
+            deficits[c] = recheck(candidates[c].getPattern(), 0, GUIConstants.ALL_RECIPE_SLOTS);
+        }
+    }
+
+    /**
+     * Re-evaluates the amount constraints of the given slots against one recipe.
+     */
+    private int recheck(PackedGrid recipe, int deficit, int slots) {
+        for (int i = 0; i < 9; i++) {
+            if ((slots & (1 << i)) == 0) continue;
+            if (grid.getAmount(i) < recipe.getAmount(i)) {
+                deficit |= 1 << i;
+            } else {
+                deficit &= ~(1 << i);
+            }
+        }
+        return deficit;
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.mcengine.mccraft.common.cache;
+
+import io.github.mcengine.mccraft.common.util.GUIConstants;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Primitive encoding of a 9-slot recipe grid.
+ * <p>
+ * Each slot is stored as a {@link Material} ordinal ({@link #EMPTY} for air or nothing)
+ * plus an amount. The ordinals are additionally packed 12 bits per slot into two longs,
+ * which makes hashing and signature comparison a couple of primitive operations.
+ * <p>
+ * {@link #equals(Object)} and {@link #hashCode()} only cover the material signature,
+ * never the amounts, so a reusable buffer can probe a map keyed by recipe grids.
+ * Instances stored in {@link RecipeCache} are never mutated after construction;
+ * buffers filled from an inventory are owned by a single crafting session.
+ */
+public final class PackedGrid {
+
+    /** Ordinal stored for an empty slot. */
+    public static final short EMPTY = -1;
+
+    private static final int BITS_PER_SLOT = 12;
+    private static final long SLOT_MASK = (1L << BITS_PER_SLOT) - 1;
+    private static final int SLOTS_IN_LOW = 5;
+
+    private final short[] materials = new short[9];
+    private final int[] amounts = new int[9];
+    private long low;
+    private long high;
+    private int occupancy;
+
+    /**
+     * Creates an empty grid, typically used as a reusable per-session buffer.
+     */
+    public PackedGrid() {
+        Arrays.fill(materials, EMPTY);
+    }
+
+    /**
+     * Encodes a 9-slot ItemStack grid.
+     *
+     * @param grid 9 ItemStacks (null = empty)
+     * @return the encoded grid
+     */
+    public static PackedGrid of(ItemStack[] grid) {
+        PackedGrid packed = new PackedGrid();
+        for (int i = 0; i < 9 && i < grid.length; i++) {
+            packed.setSlot(i, grid[i]);
+        }
+        return packed;
+    }
+
+    /**
+     * Refills this buffer from the recipe slots of a crafting GUI inventory.
+     * Filler panes and air are read as empty. Each slot costs one
+     * {@code getItem}, one {@code getType} and at most one {@code getAmount} call.
+     *
+     * @param inv the crafting GUI inventory
+     * @return this buffer
+     */
+    public PackedGrid readFrom(Inventory inv) {
+        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
+        for (int i = 0; i < 9; i++) {
+            ItemStack item = inv.getItem(recipeSlots[i]);
+            if (item != null && item.getType() == Material.RED_STAINED_GLASS_PANE) item = null;
+            setSlot(i, item);
+        }
+        return this;
+    }
+
+    /**
+     * Overwrites this buffer with the materials and amounts of another grid.
+     *
+     * @param other the grid to copy
+     * @return this buffer
+     */
+    public PackedGrid copyFrom(PackedGrid other) {
+        System.arraycopy(other.materials, 0, materials, 0, 9);
+        System.arraycopy(other.amounts, 0, amounts, 0, 9);
+        low = other.low;
+        high = other.high;
+        occupancy = other.occupancy;
+        return this;
+    }
+
+    /**
+     * Sets a single slot from an ItemStack.
+     *
+     * @param slot the grid index (0-8)
+     * @param item the item, or null for empty
+     */
+    public void setSlot(int slot, ItemStack item) {
+        Material type = item == null ? null : item.getType();
+        if (type == null || type.isAir()) {
+            setSlot(slot, EMPTY, 0);
+        } else {
+            setSlot(slot, (short) type.ordinal(), item.getAmount());
+        }
+    }
+
+    /**
+     * Sets a single slot from primitives and updates the packed signature.
+     *
+     * @param slot     the grid index (0-8)
+     * @param material the material ordinal, or {@link #EMPTY}
+     * @param amount   the amount (ignored when empty)
+     */
+    public void setSlot(int slot, short material, int amount) {
+        materials[slot] = material;
+        amounts[slot] = material == EMPTY ? 0 : amount;
+        occupancy = material == EMPTY ? occupancy & ~(1 << slot) : occupancy | (1 << slot);
+
+        long code = (material + 1) & SLOT_MASK;
+        if (slot < SLOTS_IN_LOW) {
+            int shift = slot * BITS_PER_SLOT;
+            low = (low & ~(SLOT_MASK << shift)) | (code << shift);
+        } else {
+            int shift = (slot - SLOTS_IN_LOW) * BITS_PER_SLOT;
+            high = (high & ~(SLOT_MASK << shift)) | (code << shift);
+        }
+    }
+
+    public short getMaterial(int slot) { return materials[slot]; }
+    public int getAmount(int slot) { return amounts[slot]; }
+    public boolean isEmpty(int slot) { return materials[slot] == EMPTY; }
+
+    /**
+     * Gets the 9-bit mask of occupied slots (bit i set when slot i is not empty).
+     */
+    public int getOccupancy() { return occupancy; }
+
+    /**
+     * Checks whether this grid holds at least the amounts required by a recipe grid.
+     * Both grids are expected to share the same material signature.
+     *
+     * @param recipe the recipe grid
+     * @return true if every slot holds at least the expected amount
+     */
+    public boolean satisfies(PackedGrid recipe) {
+        for (int i = 0; i < 9; i++) {
+            if (amounts[i] < recipe.amounts[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares only the material signature of two grids.
+     *
+     * @param other the other grid
+     * @return true if every slot holds the same material
+     */
+    public boolean sameMaterials(PackedGrid other) {
+        return low == other.low && high == other.high && Arrays.equals(materials, other.materials);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackedGrid)) return false;
+        return sameMaterials((PackedGrid) o);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        return (int) (h ^ (h >>> 32));
+    }
+}
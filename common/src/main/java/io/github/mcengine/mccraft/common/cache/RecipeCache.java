@@ -1,27 +1,58 @@
 package io.github.mcengine.mccraft.common.cache;
 
+import io.github.mcengine.mccraft.api.database.StoredItem;
 import io.github.mcengine.mccraft.common.util.ItemSerializer;
+import io.github.mcengine.mccraft.common.util.MCCraftMetrics;
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * In-memory cache for recipes and type head items.
  * Provides fast access without hitting the database on every interaction.
+ * <p>
+ * Recipes of each type are held in an immutable {@link TypeSnapshot}. Readers never
+ * lock; writers are serialized and replace only the snapshot of the affected type.
+ * A full reload builds a new generation and swaps it in atomically.
+ * <p>
+ * Optionally the cache is bounded by an estimated heap weight. When the bound is
+ * exceeded, whole types that have not been read recently are evicted; an evicted
+ * type is read back from the database on its next use (see {@link #isResident}).
  */
 public final class RecipeCache {
 
     private static final RecipeCache INSTANCE = new RecipeCache();
 
-    /** type -> list of CachedRecipe */
-    private final ConcurrentHashMap<String, List<CachedRecipe>> recipesByType = new ConcurrentHashMap<>();
+    /** The live generation; epoch 0 is the empty state before the first load. */
+    private final AtomicReference<Generation> current = new AtomicReference<>(new Generation(0));
 
-    /** type -> head item Base64 */
-    private final ConcurrentHashMap<String, String> typeHeadItems = new ConcurrentHashMap<>();
+    /** Serializes writers; readers never take it. */
+    private final Object writeLock = new Object();
+
+    /** Writes made while a reload is in flight, replayed onto the new generation (guarded by writeLock). */
+    private List<Consumer<Generation>> reloadJournal;
+
+    /** Whether a loaded cache answers misses on its own, without asking the database. */
+    private volatile boolean authoritative = true;
+
+    /** Estimated heap budget for resident recipes in bytes; 0 disables eviction. */
+    private volatile long maxWeight;
+
+    private static final int MATERIAL_COUNT = Material.values().length;
+
+    /** Types read within this window are never evicted, even over budget. */
+    private static final long MIN_IDLE_MILLIS = 60_000L;
 
     private RecipeCache() {}
 
@@ -29,124 +60,577 @@ public final class RecipeCache {
         return INSTANCE;
     }
 
+    /** Recipes whose ItemStacks are currently deserialized. */
+    private final DecodedStackCache decodedStacks = new DecodedStackCache();
+
     /**
-     * A cached recipe storing cloned ItemStack grid and result.
+     * A cached recipe storing the precomputed primitive grid used for matching
+     * and the raw serialized contents. The grid and result ItemStacks are only
+     * deserialized when first needed and are kept in a bounded cache.
      */
     public static class CachedRecipe {
         private final String id;
         private final String type;
-        private final ItemStack[] grid;   // 9 recipe slots
-        private final ItemStack result;   // result item
+        private final PackedGrid pattern;
+        private final byte[] payload;     // 9 recipe slots + result, as serialized by ItemSerializer
 
-        public CachedRecipe(String id, String type, ItemStack[] grid, ItemStack result) {
+        CachedRecipe(String id, String type, PackedGrid pattern, byte[] payload) {
             this.id = id;
             this.type = type;
-            this.grid = grid != null ? grid.clone() : new ItemStack[9];
-            this.result = result != null ? result.clone() : null;
+            this.pattern = pattern;
+            this.payload = payload;
         }
 
         public String getId() { return id; }
         public String getType() { return type; }
-        public ItemStack[] getGrid() { return grid; }
-        public ItemStack getResult() { return result; }
+        public PackedGrid getPattern() { return pattern; }
+        public byte[] getPayload() { return payload; }
+
+        /**
+         * Estimated heap footprint of this recipe in bytes: the payload plus a fixed
+         * allowance for the recipe object, its id and its primitive grid.
+         */
+        public long getWeight() {
+            return 160L + (payload != null ? payload.length : 0) + 2L * id.length();
+        }
+
+        /**
+         * Gets the 9 recipe slot ItemStacks, deserializing them on first use.
+         * The items are shared and must not be modified; clone them before placing them.
+         */
+        public ItemStack[] getGrid() {
+            return Arrays.copyOf(INSTANCE.decodedStacks.get(this), 9);
+        }
+
+        /**
+         * Gets the result ItemStack, deserializing it on first use.
+         * The returned item is shared and must not be modified; clone it before handing it out.
+         */
+        public ItemStack getResult() {
+            return INSTANCE.decodedStacks.get(this)[9];
+        }
+    }
+
+    /**
+     * One complete, self-consistent generation of cached state.
+     * A reload builds a fresh generation off-thread and publishes it with a single swap,
+     * so readers always see either the old or the new state, never a partial one.
+     */
+    private static final class Generation {
+        /** type -> immutable snapshot of that type's recipes */
+        final ConcurrentHashMap<String, TypeSnapshot> recipesByType = new ConcurrentHashMap<>();
+
+        /** recipe id -> CachedRecipe (the recipe carries its type) */
+        final ConcurrentHashMap<String, CachedRecipe> recipesById = new ConcurrentHashMap<>();
+
+        /** type -> head item Base64 */
+        final ConcurrentHashMap<String, String> typeHeadItems = new ConcurrentHashMap<>();
+
+        /** type -> decoded head item, shared and never handed out without cloning */
+        final ConcurrentHashMap<String, ItemStack> typeHeadStacks = new ConcurrentHashMap<>();
+
+        /** Bit per Material ordinal used by a registered head item; replaced, never mutated. */
+        volatile long[] headMaterials = new long[0];
+
+        /** Type names in case-insensitive order, for prefix completion; replaced, never mutated. */
+        volatile String[] sortedTypes = new String[0];
+
+        /** Types whose recipes were evicted and must be read back from the database. */
+        final Set<String> evictedTypes = ConcurrentHashMap.newKeySet();
+
+        /** Saves to evicted types, applied on top of the database rows when the type is loaded. */
+        final Map<String, Map<String, CachedRecipe>> deferredWrites = new ConcurrentHashMap<>();
+
+        /** Deletes of ids that are not resident, dropped from the database rows when their type is loaded. */
+        final Set<String> deferredRemovals = ConcurrentHashMap.newKeySet();
+
+        final long epoch;
+
+        Generation(long epoch) {
+            this.epoch = epoch;
+        }
+
+        void putType(String type, String headItemBase64) {
+            if (typeHeadItems.put(type, headItemBase64) == null) {
+                String[] types = sortedTypes;
+                int at = Arrays.binarySearch(types, type, String.CASE_INSENSITIVE_ORDER);
+                if (at < 0) {
+                    at = -at - 1;
+                    String[] next = new String[types.length + 1];
+                    System.arraycopy(types, 0, next, 0, at);
+                    next[at] = type;
+                    System.arraycopy(types, at, next, at + 1, types.length - at);
+                    sortedTypes = next;
+                }
+            }
+            ItemStack headItem = ItemSerializer.fromBase64(headItemBase64);
+            if (headItem == null) return;
+            typeHeadStacks.put(type, headItem);
+            int ordinal = headItem.getType().ordinal();
+            long[] bits = headMaterials;
+            if ((ordinal >>> 6) < bits.length && (bits[ordinal >>> 6] & (1L << ordinal)) != 0) return;
+            long[] next = Arrays.copyOf(bits, Math.max(bits.length, (ordinal >>> 6) + 1));
+            next[ordinal >>> 6] |= 1L << ordinal;
+            headMaterials = next;
+        }
+
+        void putRecipe(CachedRecipe recipe) {
+            deferredRemovals.remove(recipe.getId());
+            if (evictedTypes.contains(recipe.getType())) {
+                unlink(recipe.getId());
+                deferredWrites.computeIfAbsent(recipe.getType(), k -> new LinkedHashMap<>()).put(recipe.getId(), recipe);
+                return;
+            }
+            CachedRecipe old = recipesById.put(recipe.getId(), recipe);
+            if (old != null && !old.getType().equals(recipe.getType())) {
+                recipesByType.computeIfPresent(old.getType(), (k, snapshot) -> snapshot.without(old.getId()));
+            }
+            recipesByType.compute(recipe.getType(), (k, snapshot) ->
+                    snapshot == null ? TypeSnapshot.of(List.of(recipe)) : snapshot.with(recipe));
+        }
+
+        void removeRecipe(String id) {
+            if (!unlink(id) && !evictedTypes.isEmpty()) {
+                // The id may belong to an evicted type; remember the delete for when it is loaded
+                deferredRemovals.add(id);
+                deferredWrites.values().forEach(writes -> writes.remove(id));
+            }
+        }
+
+        /**
+         * Removes a resident recipe from the id index and its type snapshot.
+         *
+         * @return true if the recipe was resident
+         */
+        boolean unlink(String id) {
+            CachedRecipe old = recipesById.remove(id);
+            if (old == null) return false;
+            recipesByType.computeIfPresent(old.getType(), (k, snapshot) -> snapshot.without(id));
+            return true;
+        }
+
+        /**
+         * Drops all recipes of a type from memory and marks it for database read-through.
+         *
+         * @return the weight released, in bytes
+         */
+        long evictType(String type) {
+            TypeSnapshot snapshot = recipesByType.remove(type);
+            if (snapshot == null) return 0;
+            for (CachedRecipe recipe : snapshot.recipes()) {
+                recipesById.remove(recipe.getId(), recipe);
+            }
+            evictedTypes.add(type);
+            return snapshot.weight();
+        }
+
+        /**
+         * Makes an evicted type resident again from freshly read database rows,
+         * applying any saves and deletes that happened while it was evicted.
+         */
+        void loadType(String type, List<CachedRecipe> loaded) {
+            if (!evictedTypes.remove(type)) return;
+            Map<String, CachedRecipe> merged = new LinkedHashMap<>();
+            for (CachedRecipe recipe : loaded) {
+                if (!deferredRemovals.remove(recipe.getId())) merged.put(recipe.getId(), recipe);
+            }
+            Map<String, CachedRecipe> deferred = deferredWrites.remove(type);
+            if (deferred != null) merged.putAll(deferred);
+
+            List<CachedRecipe> resident = new ArrayList<>(merged.size());
+            for (CachedRecipe recipe : merged.values()) {
+                // A resident entry under another type is a newer save that moved the recipe
+                if (recipesById.putIfAbsent(recipe.getId(), recipe) == null) resident.add(recipe);
+            }
+            TypeSnapshot snapshot = TypeSnapshot.of(resident);
+            if (snapshot != null) {
+                snapshot.touch();
+                recipesByType.put(type, snapshot);
+            }
+        }
+
+        long weight() {
+            long total = 0;
+            for (TypeSnapshot snapshot : recipesByType.values()) {
+                total += snapshot.weight();
+            }
+            return total;
+        }
     }
 
     // --- Population ---
 
     /**
-     * Loads all recipes from DB rows into the cache.
-     * Call this once on startup.
-     *
-     * @param allItems list of all recipe rows from the database
+     * Starts a reload. Writes applied from now until {@link #completeReload} or
+     * {@link #abortReload} are journaled and replayed onto the new generation,
+     * so saves racing with the database read are not lost.
+     * Callers must not run two reloads at the same time.
      */
-    public void loadRecipes(List<Map<String, String>> allItems) {
-        recipesByType.clear();
-        if (allItems == null) return;
-        for (Map<String, String> row : allItems) {
-            String id = row.get("id");
-            String type = row.get("type");
-            String contents = row.get("contents");
-            if (id == null || type == null || contents == null) continue;
-            addRecipeFromBase64(id, type, contents);
+    public void beginReload() {
+        synchronized (writeLock) {
+            reloadJournal = new ArrayList<>();
         }
     }
 
     /**
-     * Loads all type head items from DB rows into the cache.
+     * Builds a new generation from DB rows on the calling thread and publishes it atomically.
+     * Until the swap, readers keep seeing the previous generation in full.
      *
-     * @param types list of type rows (type, head_item)
-     */
-    public void loadTypes(List<Map<String, String>> types) {
-        typeHeadItems.clear();
-        if (types == null) return;
-        for (Map<String, String> row : types) {
-            String type = row.get("type");
-            String headItem = row.get("head_item");
-            if (type != null && headItem != null) {
-                typeHeadItems.put(type, headItem);
+     * @param allItems all recipe records from the database
+     * @param types    list of type rows (type, head_item)
+     * @return the epoch of the published generation
+     */
+    public long completeReload(List<StoredItem> allItems, List<Map<String, String>> types) {
+        Generation previous = current.get();
+        Generation next = new Generation(previous.epoch + 1);
+
+        Map<String, List<CachedRecipe>> byType = new LinkedHashMap<>();
+        if (allItems != null) {
+            for (StoredItem item : allItems) {
+                String id = item.getId();
+                String type = item.getType();
+                if (id == null || type == null || item.getContents() == null) continue;
+                // Cold types stay cold across a reload; their rows are not decoded at all
+                if (previous.evictedTypes.contains(type)) {
+                    next.evictedTypes.add(type);
+                    continue;
+                }
+                CachedRecipe recipe = recipeFromBytes(id, type, item.getContents());
+                CachedRecipe old = next.recipesById.put(id, recipe);
+                if (old != null) byType.get(old.getType()).remove(old);
+                byType.computeIfAbsent(type, k -> new ArrayList<>()).add(recipe);
             }
         }
+        for (Map.Entry<String, List<CachedRecipe>> entry : byType.entrySet()) {
+            TypeSnapshot snapshot = TypeSnapshot.of(entry.getValue());
+            if (snapshot == null) continue;
+            TypeSnapshot before = previous.recipesByType.get(entry.getKey());
+            next.recipesByType.put(entry.getKey(), before != null ? before.inheritAccess(snapshot) : snapshot);
+        }
+
+        if (types != null) {
+            for (Map<String, String> row : types) {
+                String type = row.get("type");
+                String headItem = row.get("head_item");
+                if (type != null && headItem != null) {
+                    next.putType(type, headItem);
+                }
+            }
+        }
+
+        synchronized (writeLock) {
+            if (reloadJournal != null) {
+                for (Consumer<Generation> write : reloadJournal) {
+                    write.accept(next);
+                }
+                reloadJournal = null;
+            }
+            enforceWeightBound(next);
+            current.set(next);
+        }
+        return next.epoch;
+    }
+
+    /**
+     * Abandons a reload started with {@link #beginReload()}, keeping the current generation.
+     */
+    public void abortReload() {
+        synchronized (writeLock) {
+            reloadJournal = null;
+        }
     }
 
     // --- Mutation ---
 
     /**
-     * Adds or updates a recipe in the cache from a Base64 contents string.
+     * Adds or updates a recipe in the cache from its serialized contents.
+     * Only the snapshot of the recipe's type (and of its previous type, if it moved) is rebuilt.
      */
-    public void putRecipe(String id, String type, String contentsBase64) {
-        removeRecipe(id);
-        addRecipeFromBase64(id, type, contentsBase64);
+    public void putRecipe(String id, String type, byte[] contents) {
+        CachedRecipe recipe = recipeFromBytes(id, type, contents);
+        write(generation -> generation.putRecipe(recipe));
     }
 
     /**
      * Removes a recipe from the cache by id.
+     * Only the snapshot of that recipe's type is rebuilt.
      */
     public void removeRecipe(String id) {
-        for (Map.Entry<String, List<CachedRecipe>> entry : recipesByType.entrySet()) {
-            entry.getValue().removeIf(r -> r.getId().equals(id));
-        }
+        write(generation -> generation.removeRecipe(id));
     }
 
     /**
      * Adds or updates a type head item in the cache.
      */
     public void putType(String type, String headItemBase64) {
-        typeHeadItems.put(type, headItemBase64);
+        write(generation -> generation.putType(type, headItemBase64));
+    }
+
+    /**
+     * Makes an evicted type resident again from its database rows.
+     *
+     * @param type the station type
+     * @param rows the type's recipe records, as returned by {@code getStoredItemsByType}
+     */
+    public void loadType(String type, List<StoredItem> rows) {
+        List<CachedRecipe> loaded = new ArrayList<>(rows.size());
+        for (StoredItem row : rows) {
+            if (row.getId() == null || row.getContents() == null) continue;
+            loaded.add(recipeFromBytes(row.getId(), type, row.getContents()));
+        }
+        write(generation -> generation.loadType(type, loaded));
+    }
+
+    /**
+     * Applies a write to the live generation and, during a reload, journals it for the next one.
+     */
+    private void write(Consumer<Generation> write) {
+        synchronized (writeLock) {
+            Generation generation = current.get();
+            write.accept(generation);
+            if (reloadJournal != null) reloadJournal.add(write);
+            enforceWeightBound(generation);
+        }
+    }
+
+    /**
+     * Evicts the least recently read types until the resident weight fits the budget.
+     * Types read within {@link #MIN_IDLE_MILLIS} are kept, so the bound is soft.
+     * Must be called with the write lock held.
+     */
+    private void enforceWeightBound(Generation generation) {
+        long max = maxWeight;
+        if (max <= 0) return;
+        long total = generation.weight();
+        if (total <= max) return;
+
+        List<Map.Entry<String, TypeSnapshot>> byAge = new ArrayList<>(generation.recipesByType.entrySet());
+        byAge.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess()));
+        long idleBefore = System.currentTimeMillis() - MIN_IDLE_MILLIS;
+        for (Map.Entry<String, TypeSnapshot> entry : byAge) {
+            if (total <= max || entry.getValue().lastAccess() > idleBefore) break;
+            total -= generation.evictType(entry.getKey());
+            MCCraftMetrics.getInstance().recordTypeEviction();
+        }
+    }
+
+    /**
+     * Sets the estimated heap budget for resident recipes.
+     *
+     * @param maxWeightBytes the budget in bytes, or 0 to keep every type resident
+     */
+    public void setMaxWeight(long maxWeightBytes) {
+        this.maxWeight = Math.max(0, maxWeightBytes);
+        synchronized (writeLock) {
+            enforceWeightBound(current.get());
+        }
     }
 
     // --- Queries ---
 
     /**
      * Gets all cached recipes for a given type.
+     * The returned list is an immutable snapshot and is safe to iterate without locking.
      */
     public List<CachedRecipe> getRecipes(String type) {
-        List<CachedRecipe> list = recipesByType.get(type);
-        return list != null ? Collections.unmodifiableList(list) : Collections.emptyList();
+        TypeSnapshot snapshot = current.get().recipesByType.get(type);
+        if (snapshot == null) return Collections.emptyList();
+        snapshot.touch();
+        return snapshot.recipes();
+    }
+
+    /**
+     * Checks if a type's recipes are in memory. A type that is not resident was evicted
+     * and must be loaded with {@link #loadType} before its recipes can be read or matched.
+     */
+    public boolean isResident(String type) {
+        return !current.get().evictedTypes.contains(type);
+    }
+
+    /**
+     * Gets a cached recipe by its id.
+     *
+     * @param id the recipe id
+     * @return the recipe, or null if not cached
+     */
+    public CachedRecipe getRecipe(String id) {
+        return current.get().recipesById.get(id);
+    }
+
+    /**
+     * Checks if the recipes have been loaded from the database,
+     * i.e. whether a cache miss means the recipe does not exist.
+     */
+    public boolean isLoaded() {
+        return current.get().epoch > 0;
+    }
+
+    /**
+     * Sets whether the cache is the source of truth for reads once loaded.
+     * Disable it when other servers write to the same database, so that misses
+     * are still checked against the database.
+     *
+     * @param authoritative whether cache misses are final
+     */
+    public void setAuthoritative(boolean authoritative) {
+        this.authoritative = authoritative;
+    }
+
+    /**
+     * Checks whether a miss in the cache means the type or recipe does not exist:
+     * the cache is loaded and configured as authoritative. Recipe misses are only
+     * final for resident types (see {@link #isResident}).
+     */
+    public boolean isAuthoritative() {
+        return authoritative && isLoaded();
+    }
+
+    /**
+     * Gets the epoch of the live generation, incremented by every completed reload.
+     */
+    public long getEpoch() {
+        return current.get().epoch;
+    }
+
+    /**
+     * Gets the number of cached recipes across all types.
+     */
+    public int getRecipeCount() {
+        return current.get().recipesById.size();
+    }
+
+    /**
+     * Gets the estimated heap footprint of all resident recipes, in bytes.
+     */
+    public long getResidentWeight() {
+        return current.get().weight();
+    }
+
+    /**
+     * Gets the configured heap budget in bytes, or 0 if unbounded.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Gets the number of types whose recipes are currently in memory.
+     */
+    public int getResidentTypeCount() {
+        return current.get().recipesByType.size();
+    }
+
+    /**
+     * Gets the number of types currently evicted to the database.
+     */
+    public int getEvictedTypeCount() {
+        return current.get().evictedTypes.size();
+    }
+
+    /**
+     * Gets the number of recipes whose ItemStacks are currently deserialized.
+     */
+    public int getDecodedCount() {
+        return decodedStacks.size();
     }
 
     /**
      * Gets the head item Base64 for a type.
      */
     public String getTypeHeadItem(String type) {
-        return typeHeadItems.get(type);
+        return current.get().typeHeadItems.get(type);
+    }
+
+    /**
+     * Gets the decoded head item of a type, deserialized once when the type was cached.
+     * The returned item is shared and must not be modified; clone it before handing it out.
+     *
+     * @param type the station type
+     * @return the head item, or null if the type is not cached or its item failed to decode
+     */
+    public ItemStack getTypeHeadItemStack(String type) {
+        return current.get().typeHeadStacks.get(type);
+    }
+
+    /**
+     * Checks whether items of a material can be head items of a registered type.
+     * Before the first load every material is a candidate.
+     *
+     * @param material the item material
+     * @return false only if no registered head item uses this material
+     */
+    public boolean isHeadMaterial(Material material) {
+        Generation generation = current.get();
+        if (generation.epoch == 0) return true;
+        long[] bits = generation.headMaterials;
+        int ordinal = material.ordinal();
+        return (ordinal >>> 6) < bits.length && (bits[ordinal >>> 6] & (1L << ordinal)) != 0;
     }
 
     /**
      * Checks if a type exists in the cache.
      */
     public boolean typeExists(String type) {
-        return typeHeadItems.containsKey(type);
+        return current.get().typeHeadItems.containsKey(type);
     }
 
     /**
      * Gets all cached type names.
      */
     public List<String> getAllTypes() {
-        return new ArrayList<>(typeHeadItems.keySet());
+        return new ArrayList<>(current.get().typeHeadItems.keySet());
+    }
+
+    /**
+     * Gets the type names starting with a prefix (ignoring case), in sorted order.
+     * Served from a sorted array maintained on type insertion: a binary search and a
+     * scan of the matches only.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of names returned
+     * @return the matching type names
+     */
+    public List<String> completeTypes(String prefix, int limit) {
+        return prefixMatches(current.get().sortedTypes, prefix, limit);
+    }
+
+    /**
+     * Gets the recipe ids of a type starting with a prefix (ignoring case), in sorted order.
+     *
+     * @param type   the station type
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of ids returned
+     * @return the matching ids; empty if the type is unknown or evicted
+     */
+    public List<String> completeRecipeIds(String type, String prefix, int limit) {
+        TypeSnapshot snapshot = current.get().recipesByType.get(type);
+        if (snapshot == null) return Collections.emptyList();
+        return prefixMatches(snapshot.sortedIds(), prefix, limit);
+    }
+
+    /**
+     * Collects the entries of a case-insensitively sorted array that start with a prefix.
+     */
+    static List<String> prefixMatches(String[] sorted, String prefix, int limit) {
+        // Lower bound: the first entry not ordered before the prefix
+        int at = 0;
+        int end = sorted.length;
+        while (at < end) {
+            int mid = (at + end) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(sorted[mid], prefix) < 0) at = mid + 1; else end = mid;
+        }
+        List<String> matches = new ArrayList<>();
+        for (int i = at; i < sorted.length && matches.size() < limit; i++) {
+            if (!sorted[i].regionMatches(true, 0, prefix, 0, prefix.length())) break;
+            matches.add(sorted[i]);
+        }
+        return matches;
     }
 
     /**
-     * Matches the player's 9-slot grid against all recipes for the given type.
+     * Matches the player's 9-slot grid against the recipes for the given type.
+     * Only recipes sharing the grid's material signature are compared,
+     * so the cost does not grow with the number of recipes of the type.
      * Returns the matching CachedRecipe, or null if no match.
      *
      * @param type       the station type
@@ -155,53 +639,96 @@ public final class RecipeCache {
      */
     public CachedRecipe matchRecipe(String type, ItemStack[] playerGrid) {
         if (playerGrid == null || playerGrid.length != 9) return null;
-        List<CachedRecipe> recipes = getRecipes(type);
-        for (CachedRecipe recipe : recipes) {
-            if (gridsMatch(recipe.getGrid(), playerGrid)) {
-                return recipe;
-            }
-        }
-        return null;
+        return matchRecipe(type, PackedGrid.of(playerGrid));
     }
 
-    // --- Internal ---
+    /**
+     * Matches a primitive grid against the recipes for the given type.
+     * Performs no allocation and no ItemStack calls, so callers on the hot path
+     * should keep a reusable {@link PackedGrid} buffer per crafting session.
+     *
+     * @param type       the station type
+     * @param playerGrid the encoded player grid
+     * @return the matching recipe, or null
+     */
+    public CachedRecipe matchRecipe(String type, PackedGrid playerGrid) {
+        TypeSnapshot snapshot = snapshot(type);
+        return snapshot == null ? null : snapshot.match(playerGrid);
+    }
+
+    /**
+     * Gets the recipes of a type that can be crafted from the given material counts,
+     * e.g. from {@link #countMaterials} over a player's inventory. Amounts are compared
+     * per material across the whole recipe, regardless of slot, and head items are not
+     * considered. Uses the type's ingredient index, so recipes using none of the held
+     * materials are never looked at.
+     *
+     * @param type           the station type
+     * @param materialCounts available amount per {@link Material} ordinal
+     * @return the craftable recipes in insertion order; empty if the type is unknown or evicted
+     */
+    public List<CachedRecipe> getCraftableRecipes(String type, int[] materialCounts) {
+        TypeSnapshot snapshot = snapshot(type);
+        return snapshot == null ? Collections.emptyList() : snapshot.craftable(materialCounts);
+    }
+
+    /**
+     * Gets the recipes of a type that use an ingredient in any slot.
+     *
+     * @param type       the station type
+     * @param ingredient the ingredient material
+     * @return the recipes in insertion order; empty if none, or if the type is unknown or evicted
+     */
+    public List<CachedRecipe> getRecipesUsing(String type, Material ingredient) {
+        TypeSnapshot snapshot = snapshot(type);
+        return snapshot == null ? Collections.emptyList() : snapshot.usingIngredient((short) ingredient.ordinal());
+    }
 
     /**
-     * Deserializes a Base64 contents string and stores the recipe as ItemStacks.
+     * Sums item amounts per material, for {@link #getCraftableRecipes}.
+     *
+     * @param contents the items, e.g. a player's inventory contents (null entries allowed)
+     * @return the amount per {@link Material} ordinal
      */
-    private void addRecipeFromBase64(String id, String type, String contentsBase64) {
-        ItemStack[] decoded = ItemSerializer.arrayFromBase64(contentsBase64);
-        ItemStack[] grid = new ItemStack[9];
-        ItemStack result = null;
-        if (decoded != null && decoded.length >= 10) {
-            System.arraycopy(decoded, 0, grid, 0, 9);
-            result = decoded[9];
+    public static int[] countMaterials(ItemStack[] contents) {
+        int[] counts = new int[MATERIAL_COUNT];
+        for (ItemStack item : contents) {
+            if (item == null) continue;
+            Material material = item.getType();
+            if (!material.isAir()) counts[material.ordinal()] += item.getAmount();
         }
-        recipesByType.computeIfAbsent(type, k -> Collections.synchronizedList(new ArrayList<>()))
-                .add(new CachedRecipe(id, type, grid, result));
+        return counts;
     }
 
     /**
-     * Compares two 9-slot grids. Items match if they are the same material and amount,
-     * or both are null/air.
+     * Gets and touches the published snapshot of a type, for matchers that keep
+     * state between checks and need to notice when the type's recipes change.
      */
-    private boolean gridsMatch(ItemStack[] recipeGrid, ItemStack[] playerGrid) {
-        for (int i = 0; i < 9; i++) {
-            ItemStack expected = recipeGrid[i];
-            ItemStack actual = playerGrid[i];
+    TypeSnapshot snapshot(String type) {
+        TypeSnapshot snapshot = current.get().recipesByType.get(type);
+        if (snapshot != null) snapshot.touch();
+        return snapshot;
+    }
 
-            boolean expectedEmpty = isEmpty(expected);
-            boolean actualEmpty = isEmpty(actual);
+    // --- Internal ---
 
-            if (expectedEmpty && actualEmpty) continue;
-            if (expectedEmpty || actualEmpty) return false;
-            if (expected.getType() != actual.getType()) return false;
-            if (actual.getAmount() < expected.getAmount()) return false;
-        }
-        return true;
+    /**
+     * Builds a recipe from its serialized contents. Only the 9 grid items are
+     * deserialized, to derive the match key; the result is skipped and no
+     * ItemStack is retained.
+     */
+    private CachedRecipe recipeFromBytes(String id, String type, byte[] payload) {
+        ItemStack[] decoded = ItemSerializer.arrayFromBytes(payload, 9);
+        PackedGrid pattern = decoded != null && decoded.length >= 10 ? PackedGrid.of(decoded) : new PackedGrid();
+        return new CachedRecipe(id, type, pattern, payload);
     }
 
-    private boolean isEmpty(ItemStack item) {
-        return item == null || item.getType().isAir();
+    /**
+     * Sets how many recipes keep their deserialized ItemStacks in memory.
+     *
+     * @param capacity the maximum number of decoded recipes
+     */
+    public void setDecodedCapacity(int capacity) {
+        decodedStacks.setCapacity(capacity);
     }
 }
@@ -0,0 +1,290 @@
+package io.github.mcengine.mccraft.common.cache;
+
+import io.github.mcengine.mccraft.common.cache.RecipeCache.CachedRecipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of all cached recipes of one station type.
+ * <p>
+ * Snapshots are never modified once built. Writers build a new snapshot for the
+ * affected type and publish it by replacing the map entry, so readers on the main
+ * thread can iterate and probe a snapshot without locking or copying.
+ * The only mutable state is the last-access time used to pick cold types for eviction.
+ */
+final class TypeSnapshot {
+
+    private static final CachedRecipe[] NO_RECIPES = new CachedRecipe[0];
+
+    private final CachedRecipe[] recipes;
+    private final List<CachedRecipe> view;
+
+    /** material signature -> recipes sharing that signature, in insertion order */
+    private final Map<PackedGrid, CachedRecipe[]> index;
+
+    /** Bit per Material ordinal used in any recipe of this type. */
+    private final long[] materialBits;
+
+    /** Bit per 9-bit occupied-slot mask used by any recipe of this type (512 bits). */
+    private final long[] occupancyBits = new long[8];
+
+    /**
+     * Total amount needed per distinct ingredient material, per recipe (parallel to {@link #recipes}).
+     * A material used in several slots of a recipe appears once with the summed amount.
+     */
+    private final short[][] needMaterials;
+    private final int[][] needAmounts;
+
+    /** ingredient material ordinal -> positions in {@link #recipes} of the recipes using it, ascending */
+    private final Map<Short, int[]> recipesByIngredient;
+
+    /** Estimated heap footprint of the recipes, in bytes. */
+    private final long weight;
+
+    /** Recipe ids in case-insensitive order, built on first completion request. */
+    private volatile String[] sortedIds;
+
+    /** {@link System#currentTimeMillis()} of the last read, or 0 if never read. */
+    private volatile long lastAccess;
+
+    private TypeSnapshot(CachedRecipe[] recipes) {
+        this.recipes = recipes;
+        this.view = Collections.unmodifiableList(Arrays.asList(recipes));
+
+        long total = 0;
+        int maxMaterial = -1;
+        for (CachedRecipe recipe : recipes) {
+            total += recipe.getWeight();
+            PackedGrid pattern = recipe.getPattern();
+            for (int i = 0; i < 9; i++) {
+                maxMaterial = Math.max(maxMaterial, pattern.getMaterial(i));
+            }
+        }
+        this.weight = total;
+
+        this.materialBits = new long[maxMaterial < 0 ? 0 : (maxMaterial >>> 6) + 1];
+        for (CachedRecipe recipe : recipes) {
+            PackedGrid pattern = recipe.getPattern();
+            for (int i = 0; i < 9; i++) {
+                short material = pattern.getMaterial(i);
+                if (material != PackedGrid.EMPTY) materialBits[material >>> 6] |= 1L << material;
+            }
+            int mask = pattern.getOccupancy();
+            occupancyBits[mask >>> 6] |= 1L << mask;
+        }
+
+        Map<PackedGrid, List<CachedRecipe>> buckets = new HashMap<>();
+        for (CachedRecipe recipe : recipes) {
+            buckets.computeIfAbsent(recipe.getPattern(), k -> new ArrayList<>(1)).add(recipe);
+        }
+        Map<PackedGrid, CachedRecipe[]> built = new HashMap<>(buckets.size() * 2);
+        for (Map.Entry<PackedGrid, List<CachedRecipe>> entry : buckets.entrySet()) {
+            built.put(entry.getKey(), entry.getValue().toArray(NO_RECIPES));
+        }
+        this.index = built;
+
+        this.needMaterials = new short[recipes.length][];
+        this.needAmounts = new int[recipes.length][];
+        Map<Short, List<Integer>> postings = new HashMap<>();
+        for (int r = 0; r < recipes.length; r++) {
+            PackedGrid pattern = recipes[r].getPattern();
+            short[] materials = new short[9];
+            int[] amounts = new int[9];
+            int distinct = 0;
+            for (int i = 0; i < 9; i++) {
+                short material = pattern.getMaterial(i);
+                if (material == PackedGrid.EMPTY) continue;
+                int at = 0;
+                while (at < distinct && materials[at] != material) at++;
+                if (at == distinct) {
+                    materials[distinct++] = material;
+                    postings.computeIfAbsent(material, k -> new ArrayList<>()).add(r);
+                }
+                amounts[at] += pattern.getAmount(i);
+            }
+            needMaterials[r] = Arrays.copyOf(materials, distinct);
+            needAmounts[r] = Arrays.copyOf(amounts, distinct);
+        }
+        Map<Short, int[]> byIngredient = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<Short, List<Integer>> entry : postings.entrySet()) {
+            byIngredient.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.recipesByIngredient = byIngredient;
+    }
+
+    /**
+     * Builds a snapshot from a list of recipes.
+     *
+     * @param recipes the recipes of one type
+     * @return the snapshot, or null if the list is empty; it counts as read just now,
+     *         so a freshly created or loaded type is not the first to be evicted
+     */
+    static TypeSnapshot of(List<CachedRecipe> recipes) {
+        if (recipes.isEmpty()) return null;
+        TypeSnapshot snapshot = new TypeSnapshot(recipes.toArray(NO_RECIPES));
+        snapshot.touch();
+        return snapshot;
+    }
+
+    /**
+     * Returns a new snapshot with the recipe added, replacing any recipe with the same id.
+     */
+    TypeSnapshot with(CachedRecipe recipe) {
+        CachedRecipe[] next = Arrays.copyOf(recipes, recipes.length + 1);
+        int length = 0;
+        for (CachedRecipe existing : recipes) {
+            if (!existing.getId().equals(recipe.getId())) next[length++] = existing;
+        }
+        next[length++] = recipe;
+        return inheritAccess(new TypeSnapshot(length == next.length ? next : Arrays.copyOf(next, length)));
+    }
+
+    /**
+     * Returns a new snapshot without the recipe with the given id.
+     *
+     * @return the new snapshot, this snapshot if the id is absent, or null if it becomes empty
+     */
+    TypeSnapshot without(String id) {
+        CachedRecipe[] next = new CachedRecipe[recipes.length];
+        int length = 0;
+        for (CachedRecipe existing : recipes) {
+            if (!existing.getId().equals(id)) next[length++] = existing;
+        }
+        if (length == recipes.length) return this;
+        return length == 0 ? null : inheritAccess(new TypeSnapshot(Arrays.copyOf(next, length)));
+    }
+
+    /**
+     * Copies this snapshot's last-access time onto a snapshot that replaces it.
+     */
+    TypeSnapshot inheritAccess(TypeSnapshot next) {
+        next.lastAccess = lastAccess;
+        return next;
+    }
+
+    /**
+     * Cheap prefilter: false if no recipe of this type can possibly match the grid.
+     */
+    boolean mayMatch(PackedGrid playerGrid) {
+        int mask = playerGrid.getOccupancy();
+        if ((occupancyBits[mask >>> 6] & (1L << mask)) == 0) return false;
+        for (int i = 0; i < 9; i++) {
+            short material = playerGrid.getMaterial(i);
+            if (material == PackedGrid.EMPTY) continue;
+            int word = material >>> 6;
+            if (word >= materialBits.length || (materialBits[word] & (1L << material)) == 0) return false;
+        }
+        return true;
+    }
+
+    List<CachedRecipe> recipes() {
+        return view;
+    }
+
+    /**
+     * Gets the recipe ids in case-insensitive order. Built lazily, since most snapshots
+     * are replaced by the next write before anyone completes an id; a racing build is harmless.
+     */
+    String[] sortedIds() {
+        String[] ids = sortedIds;
+        if (ids == null) {
+            ids = new String[recipes.length];
+            for (int i = 0; i < recipes.length; i++) ids[i] = recipes[i].getId();
+            Arrays.sort(ids, String.CASE_INSENSITIVE_ORDER);
+            sortedIds = ids;
+        }
+        return ids;
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the recipes sharing the grid's material signature, ignoring amounts.
+     * The returned array is shared and must not be modified.
+     *
+     * @return the candidates in insertion order, or null if none
+     */
+    CachedRecipe[] candidates(PackedGrid playerGrid) {
+        if (!mayMatch(playerGrid)) return null;
+        return index.get(playerGrid);
+    }
+
+    /**
+     * Gets the recipes that use an ingredient material in any slot, in insertion order.
+     */
+    List<CachedRecipe> usingIngredient(short material) {
+        int[] positions = recipesByIngredient.get(material);
+        if (positions == null) return Collections.emptyList();
+        List<CachedRecipe> result = new ArrayList<>(positions.length);
+        for (int position : positions) result.add(recipes[position]);
+        return result;
+    }
+
+    /**
+     * Finds the recipes whose total ingredient needs are covered by the given material counts.
+     * Only the posting lists of materials with a positive count are visited, and each
+     * recipe is evaluated once, from the posting list of its first ingredient, so the cost
+     * is proportional to the recipes that use held materials rather than to all recipes.
+     *
+     * @param materialCounts available amount per Material ordinal
+     * @return the craftable recipes, in insertion order
+     */
+    List<CachedRecipe> craftable(int[] materialCounts) {
+        int[] found = new int[8];
+        int size = 0;
+        for (Map.Entry<Short, int[]> entry : recipesByIngredient.entrySet()) {
+            short material = entry.getKey();
+            if (material >= materialCounts.length || materialCounts[material] <= 0) continue;
+            for (int position : entry.getValue()) {
+                short[] materials = needMaterials[position];
+                if (materials[0] != material || !covered(position, materialCounts)) continue;
+                if (size == found.length) found = Arrays.copyOf(found, size * 2);
+                found[size++] = position;
+            }
+        }
+        Arrays.sort(found, 0, size);
+        List<CachedRecipe> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) result.add(recipes[found[i]]);
+        return result;
+    }
+
+    private boolean covered(int position, int[] materialCounts) {
+        short[] materials = needMaterials[position];
+        int[] amounts = needAmounts[position];
+        for (int i = 0; i < materials.length; i++) {
+            if (materials[i] >= materialCounts.length || materialCounts[materials[i]] < amounts[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first recipe with the grid's material signature whose amounts the grid satisfies.
+     * Grids using an occupied-slot layout or a material that no recipe of this type uses
+     * are rejected by the bitset prefilter before the index is probed.
+     */
+    CachedRecipe match(PackedGrid playerGrid) {
+        CachedRecipe[] candidates = candidates(playerGrid);
+        if (candidates == null) return null;
+        for (CachedRecipe recipe : candidates) {
+            if (playerGrid.satisfies(recipe.getPattern())) {
+                return recipe;
+            }
+        }
+        return null;
+    }
+}
@@ -5,6 +5,7 @@ import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -51,6 +52,20 @@ public class MCCraftCommandManager implements CommandExecutor {
         return subcommands;
     }
 
+    /**
+     * Runs a task on the main thread: right away when already on it, so replies
+     * answered from the cache land in the same tick, otherwise on the next tick.
+     *
+     * @param task the task to run
+     */
+    public static void runSync(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(Bukkit.getPluginManager().getPlugin("MCCraft"), task);
+        }
+    }
+
     public static void send(CommandSender sender, Component message) {
         if (sender instanceof Audience) {
             ((Audience) sender).sendMessage(message);
@@ -1,6 +1,6 @@
 package io.github.mcengine.mccraft.common.command;
 
-import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -16,10 +17,13 @@ import java.util.stream.Collectors;
  */
 public class MCCraftTabCompleter implements TabCompleter {
 
+    /** Upper bound on suggestions sent per tab press. */
+    private static final int MAX_COMPLETIONS = 100;
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
-            List<String> subs = new ArrayList<>(Arrays.asList("type", "create", "get", "editor", "help"));
+            List<String> subs = new ArrayList<>(Arrays.asList("type", "create", "get", "editor", "reload", "stats", "help"));
             return filter(subs, args[0]);
         }
 
@@ -57,6 +61,10 @@ public class MCCraftTabCompleter implements TabCompleter {
                 if (args.length == 2) {
                     return filterTypes(args[1]);
                 }
+                if (args.length == 3) {
+                    return RecipeCache.getInstance().completeRecipeIds(
+                            args[1].toLowerCase(Locale.ROOT), args[2], MAX_COMPLETIONS);
+                }
                 break;
             }
             default:
@@ -67,14 +75,7 @@ public class MCCraftTabCompleter implements TabCompleter {
     }
 
     private List<String> filterTypes(String input) {
-        MCCraftProvider provider = MCCraftProvider.getInstance();
-        if (provider == null) return Collections.emptyList();
-        try {
-            List<String> types = provider.getDb().getAllTypes();
-            return filter(types, input);
-        } catch (Exception e) {
-            return Collections.emptyList();
-        }
+        return RecipeCache.getInstance().completeTypes(input, MAX_COMPLETIONS);
     }
 
     private List<String> filter(List<String> options, String input) {
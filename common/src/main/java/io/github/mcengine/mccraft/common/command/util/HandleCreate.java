@@ -36,7 +36,7 @@ public class HandleCreate implements ICraftCommandHandle {
         String recipeId = type + "/" + id;
         MCCraftProvider provider = MCCraftProvider.getInstance();
 
-        // Verify the type exists in the mccraft_type table
+        // Verify the type exists; answered from the cache in the same tick once it is loaded
         provider.typeExists(type).thenAccept(exists -> {
             if (!exists) {
                 MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.create.type.not.found")
@@ -44,18 +44,15 @@ public class HandleCreate implements ICraftCommandHandle {
                 return;
             }
 
-            provider.getItem(recipeId).thenAccept(existing -> {
-                if (existing != null) {
+            provider.itemExists(recipeId, type).thenAccept(taken -> {
+                if (taken) {
                     MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.create.id.exists")
                             .arguments(Component.text(recipeId)).color(NamedTextColor.RED));
                     return;
                 }
 
                 // Open the crafting editor GUI on the main thread
-                player.getServer().getScheduler().runTask(
-                        player.getServer().getPluginManager().getPlugin("MCCraft"),
-                        () -> CraftingGUI.openEditor(player, type, recipeId)
-                );
+                MCCraftCommandManager.runSync(() -> CraftingGUI.openEditor(player, type, recipeId));
             }).exceptionally(ex -> {
                 MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.error")
                         .arguments(Component.text(ex.getMessage())).color(NamedTextColor.RED));
@@ -2,16 +2,22 @@ package io.github.mcengine.mccraft.common.command.util;
 
 import io.github.mcengine.mccraft.api.command.ICraftCommandHandle;
 import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
+import io.github.mcengine.mccraft.common.gui.CraftingGUI;
 import io.github.mcengine.mccraft.common.gui.EditorListGUI;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
 /**
- * Handles /craft editor {type}
- * Opens a GUI listing all registered recipes for the given type.
+ * Handles /craft editor {type} [recipe_id]
+ * Opens a GUI listing all registered recipes for the given type,
+ * or the crafting editor of one recipe when its id is given.
  */
 public class HandleEditor implements ICraftCommandHandle {
 
@@ -29,13 +35,30 @@ public class HandleEditor implements ICraftCommandHandle {
         }
 
         Player player = (Player) sender;
-        String type = args[0];
+        String type = args[0].toLowerCase(Locale.ROOT);
         MCCraftProvider provider = MCCraftProvider.getInstance();
 
-        provider.getItemsByType(type).thenAccept(items -> {
+        // The list is served from the cache: wait for the initial load, or read an evicted type back
+        CompletableFuture<?> ready = RecipeCache.getInstance().isLoaded()
+                ? provider.loadType(type)
+                : provider.reloadCache();
+        String recipeId = args.length >= 2 ? args[1] : null;
+        ready.thenRun(() -> {
             player.getServer().getScheduler().runTask(
                     player.getServer().getPluginManager().getPlugin("MCCraft"),
-                    () -> EditorListGUI.open(player, type, items)
+                    () -> {
+                        if (recipeId == null) {
+                            EditorListGUI.open(player, type);
+                            return;
+                        }
+                        RecipeCache.CachedRecipe recipe = RecipeCache.getInstance().getRecipe(recipeId);
+                        if (recipe == null || !recipe.getType().equals(type)) {
+                            MCCraftCommandManager.send(player, Component.translatable("mcengine.mccraft.msg.error")
+                                    .arguments(Component.text("Recipe not found")).color(NamedTextColor.RED));
+                            return;
+                        }
+                        CraftingGUI.openEditorWithData(player, type, recipeId, recipe);
+                    }
             );
         }).exceptionally(ex -> {
             MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.error")
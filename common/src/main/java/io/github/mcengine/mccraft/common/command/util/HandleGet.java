@@ -3,10 +3,9 @@ package io.github.mcengine.mccraft.common.command.util;
 import io.github.mcengine.mccraft.api.command.ICraftCommandHandle;
 import io.github.mcengine.mccraft.common.MCCraftProvider;
 import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
-import io.github.mcengine.mccraft.common.util.ItemSerializer;
+import io.github.mcengine.mccraft.common.util.HeadItemDetector;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.NamespacedKey;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -39,42 +38,32 @@ public class HandleGet implements ICraftCommandHandle {
         String type = args[0].toLowerCase(Locale.ROOT);
         MCCraftProvider provider = MCCraftProvider.getInstance();
 
-        provider.getTypeHeadItem(type).thenAccept(base64 -> {
-            if (base64 == null) {
+        // Served as a copy of the cached decoded item; only a non-authoritative miss reads the database
+        provider.getTypeHeadItemStack(type).thenAccept(headItem -> {
+            if (headItem == null) {
                 MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.get.not.found")
                         .arguments(Component.text(type)).color(NamedTextColor.RED));
                 return;
             }
 
-            ItemStack headItem = ItemSerializer.fromBase64(base64);
-            if (headItem == null) {
-                MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.error")
-                        .arguments(Component.text("Failed to deserialize head item")).color(NamedTextColor.RED));
-                return;
-            }
-
             // Stamp the PersistentDataContainer with mccraft_type and set display name
             ItemMeta meta = headItem.getItemMeta();
             if (meta != null) {
-                NamespacedKey key = new NamespacedKey("mccraft", "mccraft_type");
-                meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, type);
+                meta.getPersistentDataContainer().set(HeadItemDetector.TYPE_KEY, PersistentDataType.STRING, type);
                 meta.displayName(Component.translatable("mcengine.mccraft.msg.get.item.name")
                         .arguments(Component.text(type)));
                 headItem.setItemMeta(meta);
             }
 
             // Give item on main thread
-            player.getServer().getScheduler().runTask(
-                    player.getServer().getPluginManager().getPlugin("MCCraft"),
-                    () -> {
-                        Map<Integer, ItemStack> overflow = player.getInventory().addItem(headItem);
-                        if (!overflow.isEmpty()) {
-                            overflow.values().forEach(item -> player.getWorld().dropItemNaturally(player.getLocation(), item));
-                        }
-                        MCCraftCommandManager.send(player, Component.translatable("mcengine.mccraft.msg.get.success")
-                                .arguments(Component.text(type)).color(NamedTextColor.GREEN));
-                    }
-            );
+            MCCraftCommandManager.runSync(() -> {
+                Map<Integer, ItemStack> overflow = player.getInventory().addItem(headItem);
+                if (!overflow.isEmpty()) {
+                    overflow.values().forEach(item -> player.getWorld().dropItemNaturally(player.getLocation(), item));
+                }
+                MCCraftCommandManager.send(player, Component.translatable("mcengine.mccraft.msg.get.success")
+                        .arguments(Component.text(type)).color(NamedTextColor.GREEN));
+            });
         }).exceptionally(ex -> {
             MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.error")
                     .arguments(Component.text(ex.getMessage())).color(NamedTextColor.RED));
@@ -0,0 +1,50 @@
+package io.github.mcengine.mccraft.common.command.util;
+
+import io.github.mcengine.mccraft.api.command.ICraftCommandHandle;
+import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
+import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Handles /craft reload
+ * <p>
+ * Rebuilds the recipe and type cache from the database off the main thread.
+ * The new cache replaces the old one in a single swap, so open stations keep
+ * working against the previous recipes until the reload finishes.
+ */
+public class HandleReload implements ICraftCommandHandle {
+
+    @Override
+    public void invoke(CommandSender sender, String[] args) {
+        MCCraftProvider provider = MCCraftProvider.getInstance();
+        long started = System.currentTimeMillis();
+
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.reload.start")
+                .color(NamedTextColor.YELLOW));
+
+        provider.reloadCache().thenAccept(epoch -> {
+            int recipes = RecipeCache.getInstance().getRecipeCount();
+            long elapsed = System.currentTimeMillis() - started;
+            MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.reload.success")
+                    .arguments(Component.text(recipes), Component.text(epoch), Component.text(elapsed))
+                    .color(NamedTextColor.GREEN));
+        }).exceptionally(ex -> {
+            MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.error")
+                    .arguments(Component.text(ex.getMessage())).color(NamedTextColor.RED));
+            return null;
+        });
+    }
+
+    @Override
+    public Component getHelp() {
+        return Component.translatable("mcengine.mccraft.msg.reload.help");
+    }
+
+    @Override
+    public String getPermission() {
+        return "mcengine.mccraft.reload";
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.mcengine.mccraft.common.command.util;
+
+import io.github.mcengine.mccraft.api.command.ICraftCommandHandle;
+import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
+import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
+import io.github.mcengine.mccraft.common.util.MCCraftMetrics;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Handles /craft stats
+ * Shows recipe cache usage and hot-path counters.
+ */
+public class HandleStats implements ICraftCommandHandle {
+
+    @Override
+    public void invoke(CommandSender sender, String[] args) {
+        RecipeCache cache = RecipeCache.getInstance();
+        MCCraftMetrics metrics = MCCraftMetrics.getInstance();
+
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.header")
+                .color(NamedTextColor.GOLD).decorate(TextDecoration.BOLD));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.cache")
+                .arguments(Component.text(cache.getRecipeCount()),
+                        Component.text(cache.getResidentTypeCount()),
+                        Component.text(cache.getEvictedTypeCount()),
+                        Component.text(cache.getEpoch()))
+                .color(NamedTextColor.GRAY));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.heap")
+                .arguments(Component.text(cache.getResidentWeight() / 1024),
+                        Component.text(cache.getMaxWeight() / 1024),
+                        Component.text(cache.getDecodedCount()))
+                .color(NamedTextColor.GRAY));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.eviction")
+                .arguments(Component.text(metrics.getTypeEvictions()),
+                        Component.text(metrics.getTypeLoads()),
+                        Component.text(String.format("%.1f", metrics.getAverageTypeLoadMillis())),
+                        Component.text(String.format("%.1f", metrics.getLastTypeLoadMillis())))
+                .color(NamedTextColor.GRAY));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.checks")
+                .arguments(Component.text(metrics.getRecipeChecksRequested()),
+                        Component.text(metrics.getRecipeChecksRun()),
+                        Component.text(metrics.getRecipeChecksCoalesced()))
+                .color(NamedTextColor.GRAY));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.slots")
+                .arguments(Component.text(metrics.getResultSlotWrites()),
+                        Component.text(metrics.getResultSlotWritesAvoided()))
+                .color(NamedTextColor.GRAY));
+        MCCraftProvider provider = MCCraftProvider.getInstance();
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.writes")
+                .arguments(Component.text(metrics.getWritesQueued()),
+                        Component.text(metrics.getWritesCoalesced()),
+                        Component.text(metrics.getWritesFlushed()),
+                        Component.text(metrics.getWriteFlushes()),
+                        Component.text(provider != null ? provider.getPendingWriteCount() : 0))
+                .color(NamedTextColor.GRAY));
+        MCCraftCommandManager.send(sender, Component.translatable("mcengine.mccraft.msg.stats.compression")
+                .arguments(Component.text(metrics.getPayloadsCompressed()),
+                        Component.text(metrics.getPayloadPlainBytes() / 1024),
+                        Component.text(metrics.getPayloadStoredBytes() / 1024),
+                        Component.text(String.format("%.1f", metrics.getPayloadSavedPercent())),
+                        Component.text(metrics.getPayloadsDecompressed()),
+                        Component.text(String.format("%.1f", metrics.getAverageDecompressMicros())))
+                .color(NamedTextColor.GRAY));
+    }
+
+    @Override
+    public Component getHelp() {
+        return Component.translatable("mcengine.mccraft.msg.stats.help");
+    }
+
+    @Override
+    public String getPermission() {
+        return "mcengine.mccraft.stats";
+    }
+}
@@ -3,19 +3,31 @@ package io.github.mcengine.mccraft.common.database;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import io.github.mcengine.mccraft.api.database.IMCCraftDB;
+import io.github.mcengine.mccraft.api.database.StoredItem;
+import io.github.mcengine.mccraft.common.util.ItemSerializer;
 import org.bukkit.plugin.Plugin;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * MySQL implementation of {@link IMCCraftDB} using HikariCP connection pooling.
+ * <p>
+ * Recipe contents live in the {@code contents_data} LONGBLOB column. The legacy
+ * {@code contents} column is only read for rows not migrated yet, and cleared
+ * whenever a row is written or migrated.
  */
 public class MCCraftMySQL implements IMCCraftDB {
 
+    private static final String SQL_UPSERT_ITEM = "INSERT INTO mccraft_item (id, type, contents_data) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE type = VALUES(type), contents_data = VALUES(contents_data), contents = NULL, "
+            + "updated_at = CURRENT_TIMESTAMP";
+
     private final HikariDataSource dataSource;
 
     public MCCraftMySQL(Plugin plugin) {
@@ -41,6 +53,8 @@ public class MCCraftMySQL implements IMCCraftDB {
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Sends a JDBC batch as multi-row statements instead of one round trip per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 
         this.dataSource = new HikariDataSource(config);
         try {
@@ -56,6 +70,7 @@ public class MCCraftMySQL implements IMCCraftDB {
                 + "id VARCHAR(255) NOT NULL, "
                 + "type VARCHAR(255) DEFAULT 'default' NOT NULL, "
                 + "contents LONGTEXT, "
+                + "contents_data LONGBLOB, "
                 + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
                 + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
                 + "PRIMARY KEY (id)"
@@ -69,17 +84,21 @@ public class MCCraftMySQL implements IMCCraftDB {
         try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
             stmt.execute(sqlItem);
             stmt.execute(sqlType);
+            // Tables created by older versions only have the Base64 column
+            try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "mccraft_item", "contents_data")) {
+                if (!rs.next()) {
+                    stmt.execute("ALTER TABLE mccraft_item ADD COLUMN contents_data LONGBLOB AFTER contents");
+                }
+            }
         }
     }
 
     @Override
     public void upsertItem(String id, String type, String contents) throws SQLException {
-        String sql = "INSERT INTO mccraft_item (id, type, contents) VALUES (?, ?, ?) "
-                + "ON DUPLICATE KEY UPDATE type = VALUES(type), contents = VALUES(contents), updated_at = CURRENT_TIMESTAMP";
-        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(SQL_UPSERT_ITEM)) {
             ps.setString(1, id);
             ps.setString(2, type);
-            ps.setString(3, contents);
+            ps.setBytes(3, ItemSerializer.bytesFromBase64(contents));
             ps.executeUpdate();
         }
     }
@@ -136,6 +155,141 @@ public class MCCraftMySQL implements IMCCraftDB {
         }
     }
 
+    @Override
+    public void upsertItems(Collection<Map<String, String>> rows) throws SQLException {
+        List<StoredItem> items = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            items.add(new StoredItem(row.get("id"), row.get("type"), ItemSerializer.bytesFromBase64(row.get("contents"))));
+        }
+        upsertStoredItems(items);
+    }
+
+    @Override
+    public void deleteItems(Collection<String> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        String sql = "DELETE FROM mccraft_item WHERE id = ?";
+        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (String id : ids) {
+                    ps.setString(1, id);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // --- Binary Item Methods ---
+
+    @Override
+    public StoredItem getStoredItem(String id) throws SQLException {
+        String sql = "SELECT id, type, contents, contents_data FROM mccraft_item WHERE id = ?";
+        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return mapStoredItem(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<StoredItem> getStoredItemsByType(String type) throws SQLException {
+        String sql = "SELECT id, type, contents, contents_data FROM mccraft_item WHERE type = ?";
+        List<StoredItem> results = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, type);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapStoredItem(rs));
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<StoredItem> getAllStoredItems() throws SQLException {
+        String sql = "SELECT id, type, contents, contents_data FROM mccraft_item";
+        List<StoredItem> results = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                results.add(mapStoredItem(rs));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void upsertStoredItems(Collection<StoredItem> items) throws SQLException {
+        if (items.isEmpty()) return;
+        try (Connection conn = dataSource.getConnection(); PreparedStatement ps = conn.prepareStatement(SQL_UPSERT_ITEM)) {
+            conn.setAutoCommit(false);
+            try {
+                for (StoredItem item : items) {
+                    ps.setString(1, item.getId());
+                    ps.setString(2, item.getType());
+                    ps.setBytes(3, item.getContents());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public String migrateLegacyItems(String afterId, int batchSize) throws SQLException {
+        String select = "SELECT id, contents FROM mccraft_item "
+                + "WHERE id > ? AND contents_data IS NULL AND contents IS NOT NULL ORDER BY id LIMIT ?";
+        // A row saved since the select already has binary contents and is left alone
+        String update = "UPDATE mccraft_item SET contents_data = ?, contents = NULL WHERE id = ? AND contents_data IS NULL";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement sel = conn.prepareStatement(select);
+             PreparedStatement upd = conn.prepareStatement(update)) {
+            conn.setAutoCommit(false);
+            try {
+                String lastId = null;
+                sel.setString(1, afterId == null ? "" : afterId);
+                sel.setInt(2, batchSize);
+                try (ResultSet rs = sel.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getString("id");
+                        byte[] data = ItemSerializer.bytesFromBase64(rs.getString("contents"));
+                        if (data == null) continue;
+                        upd.setBytes(1, data);
+                        upd.setString(2, lastId);
+                        upd.addBatch();
+                    }
+                }
+                upd.executeBatch();
+                conn.commit();
+                return lastId;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
     @Override
     public void close() {
         if (dataSource != null && !dataSource.isClosed()) {
@@ -227,9 +381,19 @@ public class MCCraftMySQL implements IMCCraftDB {
         Map<String, String> row = new HashMap<>();
         row.put("id", rs.getString("id"));
         row.put("type", rs.getString("type"));
-        row.put("contents", rs.getString("contents"));
+        byte[] data = rs.getBytes("contents_data");
+        row.put("contents", data != null ? Base64.getEncoder().encodeToString(data) : rs.getString("contents"));
         row.put("created_at", rs.getString("created_at"));
         row.put("updated_at", rs.getString("updated_at"));
         return row;
     }
+
+    private StoredItem mapStoredItem(ResultSet rs) throws SQLException {
+        byte[] data = rs.getBytes("contents_data");
+        if (data == null) {
+            // Not migrated yet
+            data = ItemSerializer.bytesFromBase64(rs.getString("contents"));
+        }
+        return new StoredItem(rs.getString("id"), rs.getString("type"), data);
+    }
 }
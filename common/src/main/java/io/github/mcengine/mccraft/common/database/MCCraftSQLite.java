@@ -1,40 +1,118 @@
 package io.github.mcengine.mccraft.common.database;
 
 import io.github.mcengine.mccraft.api.database.IMCCraftDB;
+import io.github.mcengine.mccraft.api.database.StoredItem;
+import io.github.mcengine.mccraft.common.util.ItemSerializer;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SQLite implementation of {@link IMCCraftDB}.
+ * <p>
+ * The database runs in WAL mode. All writes go through one connection owned by a
+ * dedicated writer thread, so they never contend for SQLite's write lock. Reads are
+ * served by a small pool of read-only connections and never wait for a write to
+ * finish. Every connection keeps its prepared statements for reuse.
+ * <p>
+ * Recipe contents live in the {@code contents_data} BLOB column. The legacy
+ * {@code contents} column is only read for rows not migrated yet, and cleared
+ * whenever a row is written or migrated.
  */
 public class MCCraftSQLite implements IMCCraftDB {
 
-    private Connection conn;
+    private static final String SQL_UPSERT_ITEM = "INSERT INTO mccraft_item (id, type, contents_data) VALUES (?, ?, ?) "
+            + "ON CONFLICT(id) DO UPDATE SET type = excluded.type, contents_data = excluded.contents_data, contents = NULL, "
+            + "updated_at = CURRENT_TIMESTAMP";
+    private static final String SQL_GET_ITEM = "SELECT * FROM mccraft_item WHERE id = ?";
+    private static final String SQL_ITEMS_BY_TYPE = "SELECT * FROM mccraft_item WHERE type = ?";
+    private static final String SQL_MIGRATE_SELECT = "SELECT id, contents FROM mccraft_item "
+            + "WHERE id > ? AND contents_data IS NULL AND contents IS NOT NULL ORDER BY id LIMIT ?";
+    // A row saved since the select already has binary contents and is left alone
+    private static final String SQL_MIGRATE_UPDATE = "UPDATE mccraft_item SET contents_data = ?, contents = NULL "
+            + "WHERE id = ? AND contents_data IS NULL";
+    private static final String SQL_DISTINCT_TYPES = "SELECT DISTINCT type FROM mccraft_item";
+    private static final String SQL_DELETE_ITEM = "DELETE FROM mccraft_item WHERE id = ?";
+    private static final String SQL_INSERT_TYPE = "INSERT INTO mccraft_type (type, head_item) VALUES (?, ?)";
+    private static final String SQL_TYPE_EXISTS = "SELECT 1 FROM mccraft_type WHERE type = ?";
+    private static final String SQL_TYPE_HEAD_ITEM = "SELECT head_item FROM mccraft_type WHERE type = ?";
+    private static final String SQL_ALL_TYPES = "SELECT type FROM mccraft_type";
+    private static final String SQL_ALL_ITEMS = "SELECT * FROM mccraft_item";
+    private static final String SQL_ALL_TYPES_WITH_HEAD = "SELECT type, head_item FROM mccraft_type";
+
+    /** SQLITE_OPEN_READONLY, passed to the driver as {@code open_mode}. */
+    private static final String OPEN_READ_ONLY = "1";
+
+    private final String url;
+    private final ExecutorService writerThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MCCraft-SQLite-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SQLiteConnection writer;
+    private BlockingQueue<SQLiteConnection> readers;
 
     public MCCraftSQLite(Plugin plugin) {
         File dataFolder = new File(plugin.getDataFolder(), "mccraft.db");
         if (!plugin.getDataFolder().exists()) plugin.getDataFolder().mkdirs();
+        this.url = "jdbc:sqlite:" + dataFolder.getAbsolutePath();
+        int readerCount = Math.max(1, plugin.getConfig().getInt("db.sqlite.read-connections", 3));
         try {
             Class.forName("org.sqlite.JDBC");
-            this.conn = DriverManager.getConnection("jdbc:sqlite:" + dataFolder.getAbsolutePath());
+            this.writer = new SQLiteConnection(open(false));
             createTable();
+            // Readers are opened after the schema exists; read-only connections cannot create it
+            this.readers = new ArrayBlockingQueue<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                readers.add(new SQLiteConnection(open(true)));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Opens a connection with the pragmas used by every connection of this backend.
+     * WAL mode is persistent in the database file, so setting it on the writer is enough.
+     */
+    private Connection open(boolean readOnly) throws SQLException {
+        Properties properties = new Properties();
+        if (readOnly) properties.setProperty("open_mode", OPEN_READ_ONLY);
+        Connection conn = DriverManager.getConnection(url, properties);
+        try (Statement stmt = conn.createStatement()) {
+            if (!readOnly) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                // NORMAL is durable across application crashes in WAL mode; only a power loss can drop the last commits
+                stmt.execute("PRAGMA synchronous=NORMAL");
+            }
+            stmt.execute("PRAGMA busy_timeout=5000");
+            stmt.execute("PRAGMA cache_size=-8000");
+            stmt.execute("PRAGMA temp_store=MEMORY");
+        }
+        return conn;
+    }
+
     @Override
     public void createTable() throws SQLException {
         String sqlItem = "CREATE TABLE IF NOT EXISTS mccraft_item ("
                 + "id VARCHAR(255) NOT NULL, "
                 + "type VARCHAR(255) DEFAULT 'default' NOT NULL, "
                 + "contents LONGTEXT, "
+                + "contents_data BLOB, "
                 + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
                 + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
                 + "PRIMARY KEY (id)"
@@ -45,166 +123,410 @@ public class MCCraftSQLite implements IMCCraftDB {
                 + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
                 + "PRIMARY KEY (type)"
                 + ");";
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute(sqlItem);
-            stmt.execute(sqlType);
-        }
+        write(conn -> {
+            try (Statement stmt = conn.connection.createStatement()) {
+                stmt.execute(sqlItem);
+                stmt.execute(sqlType);
+                // Tables created by older versions only have the Base64 column
+                try (ResultSet rs = conn.connection.getMetaData().getColumns(null, null, "mccraft_item", "contents_data")) {
+                    if (!rs.next()) {
+                        stmt.execute("ALTER TABLE mccraft_item ADD COLUMN contents_data BLOB");
+                    }
+                }
+            }
+            return null;
+        });
     }
 
     @Override
     public void upsertItem(String id, String type, String contents) throws SQLException {
-        String sql = "INSERT INTO mccraft_item (id, type, contents) VALUES (?, ?, ?) "
-                + "ON CONFLICT(id) DO UPDATE SET type = excluded.type, contents = excluded.contents, updated_at = CURRENT_TIMESTAMP";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        write(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_UPSERT_ITEM);
             ps.setString(1, id);
             ps.setString(2, type);
-            ps.setString(3, contents);
+            ps.setBytes(3, ItemSerializer.bytesFromBase64(contents));
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
 
     @Override
     public Map<String, String> getItem(String id) throws SQLException {
-        String sql = "SELECT * FROM mccraft_item WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_GET_ITEM);
             ps.setString(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return mapRow(rs);
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     @Override
     public List<Map<String, String>> getItemsByType(String type) throws SQLException {
-        String sql = "SELECT * FROM mccraft_item WHERE type = ?";
-        List<Map<String, String>> results = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_ITEMS_BY_TYPE);
             ps.setString(1, type);
+            List<Map<String, String>> results = new ArrayList<>();
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     results.add(mapRow(rs));
                 }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     @Override
     public List<String> getTypes() throws SQLException {
-        String sql = "SELECT DISTINCT type FROM mccraft_item";
-        List<String> types = new ArrayList<>();
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                types.add(rs.getString("type"));
+        return read(conn -> {
+            List<String> types = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SQL_DISTINCT_TYPES).executeQuery()) {
+                while (rs.next()) {
+                    types.add(rs.getString("type"));
+                }
             }
-        }
-        return types;
+            return types;
+        });
     }
 
     @Override
     public void deleteItem(String id) throws SQLException {
-        String sql = "DELETE FROM mccraft_item WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        write(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_DELETE_ITEM);
             ps.setString(1, id);
             ps.executeUpdate();
+            return null;
+        });
+    }
+
+    @Override
+    public void upsertItems(Collection<Map<String, String>> rows) throws SQLException {
+        List<StoredItem> items = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            items.add(new StoredItem(row.get("id"), row.get("type"), ItemSerializer.bytesFromBase64(row.get("contents"))));
         }
+        upsertStoredItems(items);
+    }
+
+    @Override
+    public void deleteItems(Collection<String> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        write(conn -> conn.inTransaction(() -> {
+            PreparedStatement ps = conn.prepare(SQL_DELETE_ITEM);
+            for (String id : ids) {
+                ps.setString(1, id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }));
+    }
+
+    // --- Binary Item Methods ---
+
+    @Override
+    public StoredItem getStoredItem(String id) throws SQLException {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_GET_ITEM);
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return mapStoredItem(rs);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<StoredItem> getStoredItemsByType(String type) throws SQLException {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_ITEMS_BY_TYPE);
+            ps.setString(1, type);
+            List<StoredItem> results = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapStoredItem(rs));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<StoredItem> getAllStoredItems() throws SQLException {
+        return read(conn -> {
+            List<StoredItem> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SQL_ALL_ITEMS).executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapStoredItem(rs));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public void upsertStoredItems(Collection<StoredItem> items) throws SQLException {
+        if (items.isEmpty()) return;
+        write(conn -> conn.inTransaction(() -> {
+            PreparedStatement ps = conn.prepare(SQL_UPSERT_ITEM);
+            for (StoredItem item : items) {
+                ps.setString(1, item.getId());
+                ps.setString(2, item.getType());
+                ps.setBytes(3, item.getContents());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }));
+    }
+
+    @Override
+    public String migrateLegacyItems(String afterId, int batchSize) throws SQLException {
+        return write(conn -> {
+            String[] lastId = new String[1];
+            conn.inTransaction(() -> {
+                PreparedStatement sel = conn.prepare(SQL_MIGRATE_SELECT);
+                PreparedStatement upd = conn.prepare(SQL_MIGRATE_UPDATE);
+                sel.setString(1, afterId == null ? "" : afterId);
+                sel.setInt(2, batchSize);
+                try (ResultSet rs = sel.executeQuery()) {
+                    while (rs.next()) {
+                        lastId[0] = rs.getString("id");
+                        byte[] data = ItemSerializer.bytesFromBase64(rs.getString("contents"));
+                        if (data == null) continue;
+                        upd.setBytes(1, data);
+                        upd.setString(2, lastId[0]);
+                        upd.addBatch();
+                    }
+                }
+                upd.executeBatch();
+            });
+            return lastId[0];
+        });
     }
 
     @Override
     public void close() {
+        // Let queued writes finish before the writer connection goes away
+        writerThread.shutdown();
         try {
-            if (conn != null && !conn.isClosed()) {
-                conn.close();
+            writerThread.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer != null) writer.close();
+        if (readers != null) {
+            for (SQLiteConnection reader : readers) {
+                reader.close();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     @Override
     public void insertType(String type, String headItemBase64) throws SQLException {
-        String sql = "INSERT INTO mccraft_type (type, head_item) VALUES (?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        write(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_INSERT_TYPE);
             ps.setString(1, type);
             ps.setString(2, headItemBase64);
             ps.executeUpdate();
-        }
+            return null;
+        });
     }
 
     @Override
     public boolean typeExists(String type) throws SQLException {
-        String sql = "SELECT 1 FROM mccraft_type WHERE type = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_TYPE_EXISTS);
             ps.setString(1, type);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
             }
-        }
+        });
     }
 
     @Override
     public String getTypeHeadItem(String type) throws SQLException {
-        String sql = "SELECT head_item FROM mccraft_type WHERE type = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        return read(conn -> {
+            PreparedStatement ps = conn.prepare(SQL_TYPE_HEAD_ITEM);
             ps.setString(1, type);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getString("head_item");
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     @Override
     public List<String> getAllTypes() throws SQLException {
-        String sql = "SELECT type FROM mccraft_type";
-        List<String> types = new ArrayList<>();
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                types.add(rs.getString("type"));
+        return read(conn -> {
+            List<String> types = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SQL_ALL_TYPES).executeQuery()) {
+                while (rs.next()) {
+                    types.add(rs.getString("type"));
+                }
             }
-        }
-        return types;
+            return types;
+        });
     }
 
     @Override
     public List<Map<String, String>> getAllItems() throws SQLException {
-        String sql = "SELECT * FROM mccraft_item";
-        List<Map<String, String>> results = new ArrayList<>();
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                results.add(mapRow(rs));
+        return read(conn -> {
+            List<Map<String, String>> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SQL_ALL_ITEMS).executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapRow(rs));
+                }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     @Override
     public List<Map<String, String>> getAllTypesWithHeadItems() throws SQLException {
-        String sql = "SELECT type, head_item FROM mccraft_type";
-        List<Map<String, String>> results = new ArrayList<>();
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Map<String, String> row = new HashMap<>();
-                row.put("type", rs.getString("type"));
-                row.put("head_item", rs.getString("head_item"));
-                results.add(row);
+        return read(conn -> {
+            List<Map<String, String>> results = new ArrayList<>();
+            try (ResultSet rs = conn.prepare(SQL_ALL_TYPES_WITH_HEAD).executeQuery()) {
+                while (rs.next()) {
+                    Map<String, String> row = new HashMap<>();
+                    row.put("type", rs.getString("type"));
+                    row.put("head_item", rs.getString("head_item"));
+                    results.add(row);
+                }
             }
-        }
-        return results;
+            return results;
+        });
     }
 
     private Map<String, String> mapRow(ResultSet rs) throws SQLException {
         Map<String, String> row = new HashMap<>();
         row.put("id", rs.getString("id"));
         row.put("type", rs.getString("type"));
-        row.put("contents", rs.getString("contents"));
+        byte[] data = rs.getBytes("contents_data");
+        row.put("contents", data != null ? Base64.getEncoder().encodeToString(data) : rs.getString("contents"));
         row.put("created_at", rs.getString("created_at"));
         row.put("updated_at", rs.getString("updated_at"));
         return row;
     }
+
+    private StoredItem mapStoredItem(ResultSet rs) throws SQLException {
+        byte[] data = rs.getBytes("contents_data");
+        if (data == null) {
+            // Not migrated yet
+            data = ItemSerializer.bytesFromBase64(rs.getString("contents"));
+        }
+        return new StoredItem(rs.getString("id"), rs.getString("type"), data);
+    }
+
+    // --- Connection handling ---
+
+    /**
+     * Runs work on the writer thread and waits for it. Callers are already off the main thread.
+     */
+    private <T> T write(SqlWork<T> work) throws SQLException {
+        if (writer == null) throw new SQLException("SQLite database is not open");
+        try {
+            return writerThread.submit(() -> work.run(writer)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the SQLite writer", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new SQLException(cause);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            throw new SQLException("SQLite database is closed", e);
+        }
+    }
+
+    /**
+     * Runs work on a pooled read-only connection, waiting for one to become free.
+     */
+    private <T> T read(SqlWork<T> work) throws SQLException {
+        if (readers == null) throw new SQLException("SQLite database is not open");
+        SQLiteConnection conn;
+        try {
+            conn = readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a SQLite reader", e);
+        }
+        try {
+            return work.run(conn);
+        } finally {
+            readers.add(conn);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(SQLiteConnection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    /**
+     * A connection used by one thread at a time, with its prepared statements kept open.
+     */
+    private static final class SQLiteConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        SQLiteConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        /**
+         * Runs statements as one transaction, rolling back if any fails.
+         *
+         * @return null, so it can be returned from {@link SqlWork}
+         */
+        Void inTransaction(SqlAction action) throws SQLException {
+            connection.setAutoCommit(false);
+            try {
+                action.run();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                // A batch left half-run must not leak into the next one
+                for (PreparedStatement ps : statements.values()) {
+                    ps.clearBatch();
+                }
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        }
+
+        void close() {
+            try {
+                for (PreparedStatement ps : statements.values()) {
+                    ps.close();
+                }
+                if (!connection.isClosed()) {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 }
@@ -1,24 +1,58 @@
 package io.github.mcengine.mccraft.common.gui;
 
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.util.GUIConstants;
 import io.github.mcengine.mccraft.common.util.ItemSerializer;
-import net.kyori.adventure.text.Component;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Builds and manages the virtual 54-slot crafting GUI.
+ * <p>
+ * Every crafting GUI starts from one prebuilt template (filler panes around an
+ * empty grid and result slot) applied with a single {@code setContents} call.
+ * When pooling is enabled, closed crafting views are kept per player and type
+ * and reused on the next open instead of creating a new inventory.
  */
 public final class CraftingGUI {
 
+    /** Filler around the grid; built once, never handed out (setContents copies its items). */
+    private static ItemStack[] template;
+
+    private static boolean poolInventories;
+
+    /** player -> type -> reusable crafting view session (main thread only). */
+    private static final Map<UUID, Map<String, CraftingSession>> pool = new HashMap<>();
+
     private CraftingGUI() {}
 
+    /**
+     * Enables or disables reusing closed crafting view inventories per player.
+     * Disabling drops every pooled inventory.
+     *
+     * @param enabled whether to pool inventories
+     */
+    public static void setPoolInventories(boolean enabled) {
+        poolInventories = enabled;
+        if (!enabled) pool.clear();
+    }
+
+    /**
+     * Drops the pooled inventories of a player, typically on quit.
+     *
+     * @param playerId the player's UUID
+     */
+    public static void releasePlayer(UUID playerId) {
+        pool.remove(playerId);
+    }
+
     /**
      * Opens a blank crafting editor GUI for defining a new recipe.
      *
@@ -27,9 +61,8 @@ public final class CraftingGUI {
      * @param recipeId the recipe identifier
      */
     public static void openEditor(Player player, String type, String recipeId) {
-        Component title = Component.text(GUIConstants.CRAFTING_GUI_TITLE + " - " + type + " [" + recipeId + "]");
-        Inventory inv = Bukkit.createInventory(null, GUIConstants.GUI_SIZE, title);
-        fillFiller(inv);
+        Inventory inv = CraftingSession.editor(type, recipeId).getInventory();
+        inv.setContents(template());
         player.openInventory(inv);
     }
 
@@ -42,9 +75,8 @@ public final class CraftingGUI {
      * @param row      the database row containing the recipe contents
      */
     public static void openEditorWithData(Player player, String type, String recipeId, Map<String, String> row) {
-        Component title = Component.text(GUIConstants.CRAFTING_GUI_TITLE + " - " + type + " [" + recipeId + "]");
-        Inventory inv = Bukkit.createInventory(null, GUIConstants.GUI_SIZE, title);
-        fillFiller(inv);
+        Inventory inv = CraftingSession.editor(type, recipeId).getInventory();
+        ItemStack[] slots = template().clone();
 
         String contents = row.get("contents");
         if (contents != null && !contents.isEmpty()) {
@@ -54,15 +86,44 @@ public final class CraftingGUI {
                 int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
                 for (int i = 0; i < recipeSlots.length && i < decoded.length; i++) {
                     if (decoded[i] != null) {
-                        inv.setItem(recipeSlots[i], decoded[i]);
+                        slots[recipeSlots[i]] = decoded[i];
                     }
                 }
                 if (decoded.length > 9 && decoded[9] != null) {
-                    inv.setItem(GUIConstants.RESULT_SLOT, decoded[9]);
+                    slots[GUIConstants.RESULT_SLOT] = decoded[9];
                 }
             }
         }
 
+        inv.setContents(slots);
+        player.openInventory(inv);
+    }
+
+    /**
+     * Opens a crafting editor GUI pre-populated with a cached recipe.
+     *
+     * @param player   the player to open the GUI for
+     * @param type     the station type
+     * @param recipeId the recipe identifier
+     * @param recipe   the cached recipe
+     */
+    public static void openEditorWithData(Player player, String type, String recipeId, RecipeCache.CachedRecipe recipe) {
+        Inventory inv = CraftingSession.editor(type, recipeId).getInventory();
+        ItemStack[] slots = template().clone();
+
+        // setContents copies the stacks, so the shared decoded stacks are never exposed
+        ItemStack[] grid = recipe.getGrid();
+        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
+        for (int i = 0; i < recipeSlots.length && i < grid.length; i++) {
+            if (grid[i] != null) {
+                slots[recipeSlots[i]] = grid[i];
+            }
+        }
+        if (recipe.getResult() != null) {
+            slots[GUIConstants.RESULT_SLOT] = recipe.getResult();
+        }
+
+        inv.setContents(slots);
         player.openInventory(inv);
     }
 
@@ -74,38 +135,54 @@ public final class CraftingGUI {
      * @param type   the station type
      */
     public static void openCraftingView(Player player, String type) {
-        Component title = Component.text(GUIConstants.CRAFTING_GUI_TITLE + " - " + type);
-        Inventory inv = Bukkit.createInventory(null, GUIConstants.GUI_SIZE, title);
-        fillFiller(inv);
+        CraftingSession session;
+        if (poolInventories) {
+            Map<String, CraftingSession> sessions = pool.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>());
+            session = sessions.get(type);
+            if (session == null || !session.getInventory().getViewers().isEmpty()) {
+                session = CraftingSession.crafting(type);
+                sessions.put(type, session);
+            } else {
+                session.reset();
+            }
+        } else {
+            session = CraftingSession.crafting(type);
+        }
+        Inventory inv = session.getInventory();
+        inv.setContents(template());
         player.openInventory(inv);
     }
 
     /**
-     * Fills all non-functional slots with red glass pane filler items.
-     *
-     * @param inv the inventory to fill
+     * Gets the shared layout template: red glass pane filler in every non-functional slot.
+     * Callers must not modify the returned array; clone it before adding items.
      */
-    private static void fillFiller(Inventory inv) {
-        ItemStack filler = new ItemStack(Material.RED_STAINED_GLASS_PANE);
-        ItemMeta meta = filler.getItemMeta();
-        if (meta != null) {
-            meta.displayName(net.kyori.adventure.text.Component.text(" "));
-            filler.setItemMeta(meta);
-        }
-        for (int i = 0; i < GUIConstants.GUI_SIZE; i++) {
-            if (!GUIConstants.isRecipeSlot(i) && i != GUIConstants.RESULT_SLOT) {
-                inv.setItem(i, filler);
+    private static ItemStack[] template() {
+        if (template == null) {
+            ItemStack filler = new ItemStack(Material.RED_STAINED_GLASS_PANE);
+            ItemMeta meta = filler.getItemMeta();
+            if (meta != null) {
+                meta.displayName(net.kyori.adventure.text.Component.text(" "));
+                filler.setItemMeta(meta);
+            }
+            ItemStack[] slots = new ItemStack[GUIConstants.GUI_SIZE];
+            for (int i = 0; i < GUIConstants.GUI_SIZE; i++) {
+                if (!GUIConstants.isRecipeSlot(i) && i != GUIConstants.RESULT_SLOT) {
+                    slots[i] = filler;
+                }
             }
+            template = slots;
         }
+        return template;
     }
 
     /**
-     * Extracts the recipe grid and result from a GUI inventory and serializes to Base64.
+     * Extracts the recipe grid and result from a GUI inventory and serializes them.
      *
      * @param inv the inventory
-     * @return the Base64-encoded contents (9 recipe slots + 1 result = 10 items)
+     * @return the serialized contents (9 recipe slots + 1 result = 10 items), or null if serialization fails
      */
-    public static String serializeFromGUI(Inventory inv) {
+    public static byte[] serializeFromGUI(Inventory inv) {
         ItemStack[] items = new ItemStack[10];
         int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
         for (int i = 0; i < recipeSlots.length; i++) {
@@ -114,7 +191,7 @@ public final class CraftingGUI {
         }
         ItemStack result = inv.getItem(GUIConstants.RESULT_SLOT);
         items[9] = isFillerOrAir(result) ? null : result;
-        return ItemSerializer.arrayToBase64(items);
+        return ItemSerializer.arrayToBytes(items);
     }
 
     /**
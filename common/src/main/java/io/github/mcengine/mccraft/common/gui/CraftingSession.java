@@ -0,0 +1,138 @@
+package io.github.mcengine.mccraft.common.gui;
+
+import io.github.mcengine.mccraft.common.cache.GridMatcher;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
+import io.github.mcengine.mccraft.common.util.GUIConstants;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * Holder of a crafting GUI inventory, carrying everything listeners need to
+ * handle its events without parsing the view title.
+ * <p>
+ * A session is either an {@link Mode#EDITOR editor} for one recipe, saved on close,
+ * or a {@link Mode#CRAFTING crafting view} whose result slot follows an incremental
+ * {@link GridMatcher}. Sessions are only touched on the main thread.
+ */
+public final class CraftingSession implements InventoryHolder {
+
+    /**
+     * What the crafting GUI is open for.
+     */
+    public enum Mode {
+        /** Defining or editing a recipe; the grid and result are saved on close. */
+        EDITOR,
+        /** Crafting with the recipes of a type; the result slot is computed. */
+        CRAFTING
+    }
+
+    private final Mode mode;
+    private final String type;
+    private final String recipeId;
+    private final GridMatcher matcher;
+    private final Inventory inventory;
+
+    /** Grid-index bitmask of slots changed since the last recipe check, 0 when no check is pending. */
+    private int dirtyMask;
+
+    /** Recipe whose result the result slot currently shows, or null while it is empty. */
+    private RecipeCache.CachedRecipe shownRecipe;
+
+    /** Player inventory slot that held this type's head item at the last craft, or -1. */
+    private int headSlotHint = -1;
+
+    private CraftingSession(Mode mode, String type, String recipeId) {
+        this.mode = mode;
+        this.type = type;
+        this.recipeId = recipeId;
+        this.matcher = mode == Mode.CRAFTING ? new GridMatcher(type) : null;
+        String title = GUIConstants.CRAFTING_GUI_TITLE + " - " + type + (recipeId != null ? " [" + recipeId + "]" : "");
+        this.inventory = Bukkit.createInventory(this, GUIConstants.GUI_SIZE, Component.text(title));
+    }
+
+    /**
+     * Creates an editor session for a recipe.
+     *
+     * @param type     the station type
+     * @param recipeId the recipe identifier
+     * @return the session, with an empty inventory
+     */
+    public static CraftingSession editor(String type, String recipeId) {
+        return new CraftingSession(Mode.EDITOR, type, recipeId);
+    }
+
+    /**
+     * Creates a crafting view session for a type.
+     *
+     * @param type the station type
+     * @return the session, with an empty inventory
+     */
+    public static CraftingSession crafting(String type) {
+        return new CraftingSession(Mode.CRAFTING, type, null);
+    }
+
+    public Mode getMode() { return mode; }
+    public boolean isEditor() { return mode == Mode.EDITOR; }
+    public String getType() { return type; }
+
+    /**
+     * Gets the edited recipe id, or null for a crafting view.
+     */
+    public String getRecipeId() { return recipeId; }
+
+    /**
+     * Gets the incremental matcher, or null for an editor.
+     */
+    public GridMatcher getMatcher() { return matcher; }
+
+    /**
+     * Gets the recipe whose result the result slot shows, or null while it is empty.
+     */
+    public RecipeCache.CachedRecipe getShownRecipe() { return shownRecipe; }
+    public void setShownRecipe(RecipeCache.CachedRecipe recipe) { this.shownRecipe = recipe; }
+
+    /**
+     * Gets the player inventory slot where the head item was last found, or -1.
+     * The hint is not kept in sync with the inventory; callers must validate it.
+     */
+    public int getHeadSlotHint() { return headSlotHint; }
+    public void setHeadSlotHint(int slot) { this.headSlotHint = slot; }
+
+    @Override
+    public Inventory getInventory() { return inventory; }
+
+    /**
+     * Merges slots into the pending recipe check.
+     *
+     * @param slots grid-index bitmask of changed slots
+     * @return true if a check was already pending
+     */
+    public boolean markDirty(int slots) {
+        boolean pending = dirtyMask != 0;
+        dirtyMask |= slots;
+        return pending;
+    }
+
+    /**
+     * Prepares a pooled crafting view for reuse: drops any pending check and
+     * the matcher state. The caller resets the inventory contents.
+     */
+    public void reset() {
+        dirtyMask = 0;
+        shownRecipe = null;
+        if (matcher != null) matcher.reset();
+    }
+
+    /**
+     * Takes and clears the pending dirty slots.
+     *
+     * @return the slots changed since the last check, or 0 if none
+     */
+    public int takeDirty() {
+        int slots = dirtyMask;
+        dirtyMask = 0;
+        return slots;
+    }
+}
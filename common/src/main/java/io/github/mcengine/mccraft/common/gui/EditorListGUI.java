@@ -1,77 +1,126 @@
 package io.github.mcengine.mccraft.common.gui;
 
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.util.GUIConstants;
-import io.github.mcengine.mccraft.common.util.ItemSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Builds the editor list GUI that displays all registered recipes for a given type.
  * Clicking an item opens the crafting editor for that specific recipe.
+ * <p>
+ * Recipes are served from {@link RecipeCache} and shown {@link #PAGE_SIZE} per page,
+ * with previous/next controls on the bottom row. Only the visible page is rendered.
+ * Icons are built once per cached recipe instance; saving a recipe publishes a new
+ * instance, so an edited recipe never shows a stale icon.
  */
 public final class EditorListGUI {
 
+    /** Recipes shown per page: the top 5 rows. */
+    public static final int PAGE_SIZE = 45;
+
+    /** Bottom-row control slots. */
+    public static final int PREVIOUS_SLOT = 45;
+    public static final int PAGE_INFO_SLOT = 49;
+    public static final int NEXT_SLOT = 53;
+
+    /** Rendered icon per recipe instance; entries go away with replaced recipes (main thread only). */
+    private static final Map<RecipeCache.CachedRecipe, ItemStack> icons = new WeakHashMap<>();
+
     private EditorListGUI() {}
 
     /**
-     * Opens the editor list GUI for a player.
+     * Opens the editor list GUI for a player on the first page.
+     * The type must be resident in the cache (see {@link RecipeCache#isResident}).
      *
      * @param player the player
      * @param type   the station type
-     * @param items  the list of database rows for this type
      */
-    public static void open(Player player, String type, List<Map<String, String>> items) {
-        Component title = Component.text(GUIConstants.EDITOR_LIST_TITLE + " - " + type);
-        int size = Math.min(54, ((items.size() / 9) + 1) * 9);
-        if (size < 9) size = 9;
-        Inventory inv = Bukkit.createInventory(null, size, title);
+    public static void open(Player player, String type) {
+        List<RecipeCache.CachedRecipe> recipes = new ArrayList<>();
+        for (RecipeCache.CachedRecipe recipe : RecipeCache.getInstance().getRecipes(type)) {
+            // Skip legacy head item entries
+            if (!recipe.getId().endsWith("/__head__")) recipes.add(recipe);
+        }
+        EditorListSession session = new EditorListSession(type, recipes);
+        render(session);
+        player.openInventory(session.getInventory());
+    }
+
+    /**
+     * Switches an open editor list to another page, in place.
+     *
+     * @param session the editor list session
+     * @param page    the zero-based page, clamped to the valid range
+     */
+    public static void showPage(EditorListSession session, int page) {
+        session.setPage(page);
+        render(session);
+    }
 
-        int slot = 0;
-        for (Map<String, String> row : items) {
-            String id = row.get("id");
-            // Skip the head item entry
-            if (id != null && id.endsWith("/__head__")) continue;
-            if (slot >= size) break;
+    /**
+     * Renders the current page of a session with a single setContents call.
+     */
+    private static void render(EditorListSession session) {
+        ItemStack[] slots = new ItemStack[GUIConstants.GUI_SIZE];
+        List<RecipeCache.CachedRecipe> recipes = session.getRecipes();
+        int from = session.getPage() * PAGE_SIZE;
+        for (int slot = 0; slot < PAGE_SIZE && from + slot < recipes.size(); slot++) {
+            slots[slot] = icon(recipes.get(from + slot));
+        }
 
-            String contents = row.get("contents");
-            ItemStack display;
+        if (session.getPage() > 0) {
+            slots[PREVIOUS_SLOT] = control(Material.ARROW, Component.text("Previous page", NamedTextColor.YELLOW));
+        }
+        if (session.getPage() < session.getPageCount() - 1) {
+            slots[NEXT_SLOT] = control(Material.ARROW, Component.text("Next page", NamedTextColor.YELLOW));
+        }
+        slots[PAGE_INFO_SLOT] = control(Material.BOOK, Component.text(
+                "Page " + (session.getPage() + 1) + "/" + session.getPageCount()
+                        + " (" + recipes.size() + " recipes)", NamedTextColor.GRAY));
 
-            // Try to show the result item as the display icon
-            if (contents != null && !contents.isEmpty()) {
-                ItemStack[] decoded = ItemSerializer.arrayFromBase64(contents);
-                if (decoded != null && decoded.length > 9 && decoded[9] != null) {
-                    display = decoded[9].clone();
-                } else {
-                    display = new ItemStack(Material.PAPER);
-                }
-            } else {
-                display = new ItemStack(Material.PAPER);
-            }
+        session.getInventory().setContents(slots);
+    }
 
-            ItemMeta meta = display.getItemMeta();
-            if (meta != null) {
-                meta.displayName(Component.text(id != null ? id : "Unknown", NamedTextColor.YELLOW));
-                List<Component> lore = new ArrayList<>();
-                lore.add(Component.text("Type: " + type, NamedTextColor.GRAY));
-                lore.add(Component.text("Click to edit", NamedTextColor.GREEN));
-                meta.lore(lore);
-                display.setItemMeta(meta);
-            }
+    /**
+     * Gets the display icon of a recipe: its result, named after the recipe id.
+     * Built on first display and reused while the recipe instance is cached.
+     */
+    private static ItemStack icon(RecipeCache.CachedRecipe recipe) {
+        ItemStack cached = icons.get(recipe);
+        if (cached != null) return cached;
 
-            inv.setItem(slot, display);
-            slot++;
+        ItemStack result = recipe.getResult();
+        ItemStack display = result != null ? result.clone() : new ItemStack(Material.PAPER);
+        ItemMeta meta = display.getItemMeta();
+        if (meta != null) {
+            meta.displayName(Component.text(recipe.getId(), NamedTextColor.YELLOW));
+            List<Component> lore = new ArrayList<>();
+            lore.add(Component.text("Type: " + recipe.getType(), NamedTextColor.GRAY));
+            lore.add(Component.text("Click to edit", NamedTextColor.GREEN));
+            meta.lore(lore);
+            display.setItemMeta(meta);
         }
+        icons.put(recipe, display);
+        return display;
+    }
 
-        player.openInventory(inv);
+    private static ItemStack control(Material material, Component name) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.displayName(name);
+            item.setItemMeta(meta);
+        }
+        return item;
     }
 }
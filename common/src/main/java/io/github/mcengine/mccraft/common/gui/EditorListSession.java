@@ -0,0 +1,66 @@
+package io.github.mcengine.mccraft.common.gui;
+
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
+import io.github.mcengine.mccraft.common.util.GUIConstants;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.List;
+
+/**
+ * Holder of an editor list inventory. Keeps the recipes being browsed and the
+ * current page, so a click resolves to a recipe id or a page change without
+ * reading the icon's display name.
+ */
+public final class EditorListSession implements InventoryHolder {
+
+    private final String type;
+    private final List<RecipeCache.CachedRecipe> recipes;
+    private final Inventory inventory;
+    private int page;
+
+    /**
+     * Creates a session with an empty inventory.
+     *
+     * @param type    the station type
+     * @param recipes the recipes listed, in display order
+     */
+    public EditorListSession(String type, List<RecipeCache.CachedRecipe> recipes) {
+        this.type = type;
+        this.recipes = recipes;
+        this.inventory = Bukkit.createInventory(this, GUIConstants.GUI_SIZE,
+                Component.text(GUIConstants.EDITOR_LIST_TITLE + " - " + type));
+    }
+
+    public String getType() { return type; }
+    public List<RecipeCache.CachedRecipe> getRecipes() { return recipes; }
+    public int getPage() { return page; }
+
+    /**
+     * Gets the number of pages, at least 1.
+     */
+    public int getPageCount() {
+        return Math.max(1, (recipes.size() + EditorListGUI.PAGE_SIZE - 1) / EditorListGUI.PAGE_SIZE);
+    }
+
+    void setPage(int page) {
+        this.page = Math.max(0, Math.min(page, getPageCount() - 1));
+    }
+
+    /**
+     * Gets the recipe id shown in a slot of the current page.
+     *
+     * @param slot the raw slot
+     * @return the recipe id, or null if the slot shows no recipe
+     */
+    public String getRecipeId(int slot) {
+        if (slot < 0 || slot >= EditorListGUI.PAGE_SIZE) return null;
+        int index = page * EditorListGUI.PAGE_SIZE + slot;
+        return index < recipes.size() ? recipes.get(index).getId() : null;
+    }
+
+    @Override
+    public Inventory getInventory() { return inventory; }
+}
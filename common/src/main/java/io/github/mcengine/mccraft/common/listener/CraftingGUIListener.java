@@ -1,15 +1,18 @@
 package io.github.mcengine.mccraft.common.listener;
 
 import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.GridMatcher;
+import io.github.mcengine.mccraft.common.cache.PackedGrid;
 import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.gui.CraftingGUI;
+import io.github.mcengine.mccraft.common.gui.CraftingSession;
 import io.github.mcengine.mccraft.common.util.GUIConstants;
+import io.github.mcengine.mccraft.common.util.HeadItemDetector;
+import io.github.mcengine.mccraft.common.util.MCCraftMetrics;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -17,35 +20,41 @@ import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataContainer;
-import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.inventory.PlayerInventory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Handles interactions within the MCCraft crafting GUI.
  * <p>
- * For editor GUIs (title contains "["), closing saves the recipe.
- * For crafting view GUIs, players place ingredients in recipe slots;
+ * Crafting GUIs are recognised by their {@link CraftingSession} holder.
+ * For editor sessions, closing saves the recipe.
+ * For crafting view sessions, players place ingredients in recipe slots;
  * the result slot is dynamically populated when the grid matches a cached recipe.
  */
 public class CraftingGUIListener implements Listener {
 
-    private static final NamespacedKey MCCRAFT_TYPE_KEY = new NamespacedKey("mccraft", "mccraft_type");
+    /** Upper bound on crafts per shift-click; a full grid of 64-stacks needs at most 576. */
+    private static final int MAX_BULK_CRAFTS = 9 * 64;
+
+    /** Crafting views with a recipe check pending for the next tick (main thread only). */
+    private final List<CraftingSession> pendingChecks = new ArrayList<>();
+    private boolean checkTaskScheduled;
 
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
-        Component title = event.getView().title();
-        if (title == null) return;
-        String titleText = PlainTextComponentSerializer.plainText().serialize(title);
-        if (!titleText.startsWith(GUIConstants.CRAFTING_GUI_TITLE)) return;
+        if (!(event.getView().getTopInventory().getHolder(false) instanceof CraftingSession)) return;
+        CraftingSession session = (CraftingSession) event.getView().getTopInventory().getHolder(false);
 
         Player player = (Player) event.getWhoClicked();
         int slot = event.getRawSlot();
-        boolean isEditor = titleText.contains("[");
+        boolean isEditor = session.isEditor();
 
         boolean isDropAction = event.getAction() == InventoryAction.DROP_ALL_SLOT
                 || event.getAction() == InventoryAction.DROP_ONE_SLOT
@@ -58,7 +67,7 @@ public class CraftingGUIListener implements Listener {
                 return;
             }
             if (slot == GUIConstants.RESULT_SLOT) {
-                handleCraftResult(event, player, titleText, true);
+                handleCraftResult(event, player, session, true);
             } else {
                 event.setCancelled(true);
             }
@@ -71,67 +80,126 @@ public class CraftingGUIListener implements Listener {
                 // Recipe slots: allow interaction in both editor and crafting view
                 // After the click resolves, update the result slot in crafting view
                 if (!isEditor) {
-                    scheduleRecipeCheck(event.getView().getTopInventory(), titleText);
+                    int dirty = event.getAction() == InventoryAction.COLLECT_TO_CURSOR
+                            ? GUIConstants.ALL_RECIPE_SLOTS
+                            : 1 << GUIConstants.gridIndex(slot);
+                    scheduleRecipeCheck(session, dirty);
                 }
             } else if (slot == GUIConstants.RESULT_SLOT) {
                 if (isEditor) {
                     // Editor: allow free interaction with result slot
+                } else if (event.isShiftClick()) {
+                    // Crafting view: shift-click crafts as many as the grid and head items allow
+                    handleCraftMax(event, player, session);
                 } else {
                     // Crafting view: handle taking the result
-                    handleCraftResult(event, player, titleText, false);
+                    handleCraftResult(event, player, session, false);
                 }
             } else {
                 // Filler slots — always cancel
                 event.setCancelled(true);
             }
+        } else if (!isEditor && event.getAction() == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
+            // Vanilla would also move into the empty or matching result slot; route into the grid only
+            moveIntoGrid(event, session);
+        } else if (!isEditor && event.getAction() == InventoryAction.COLLECT_TO_CURSOR) {
+            // Double-click collects from the player inventory can drain any grid slot
+            scheduleRecipeCheck(session, GUIConstants.ALL_RECIPE_SLOTS);
+        }
+    }
+
+    /**
+     * Handles a shift-click from the player inventory into a crafting view. Vanilla could
+     * place the stack in the result slot, which the view treats as its own; instead the
+     * stack tops up matching grid stacks, then fills empty grid slots, and the rest stays
+     * where it was.
+     */
+    private void moveIntoGrid(InventoryClickEvent event, CraftingSession session) {
+        event.setCancelled(true);
+        ItemStack moving = event.getCurrentItem();
+        if (moving == null || moving.getType().isAir()) return;
+
+        Inventory inv = session.getInventory();
+        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
+        int maxStack = Math.max(1, moving.getMaxStackSize());
+        int remaining = moving.getAmount();
+        int dirty = 0;
+        for (int i = 0; i < 9 && remaining > 0; i++) {
+            ItemStack slotItem = inv.getItem(recipeSlots[i]);
+            if (slotItem == null || slotItem.getType().isAir() || !slotItem.isSimilar(moving)) continue;
+            int added = Math.min(remaining, maxStack - slotItem.getAmount());
+            if (added <= 0) continue;
+            slotItem.setAmount(slotItem.getAmount() + added);
+            remaining -= added;
+            dirty |= 1 << i;
+        }
+        for (int i = 0; i < 9 && remaining > 0; i++) {
+            ItemStack slotItem = inv.getItem(recipeSlots[i]);
+            if (slotItem != null && !slotItem.getType().isAir()) continue;
+            ItemStack placed = moving.clone();
+            placed.setAmount(Math.min(remaining, maxStack));
+            inv.setItem(recipeSlots[i], placed);
+            remaining -= placed.getAmount();
+            dirty |= 1 << i;
+        }
+        if (dirty == 0) return;
+
+        if (remaining > 0) {
+            ItemStack rest = moving.clone();
+            rest.setAmount(remaining);
+            event.setCurrentItem(rest);
+        } else {
+            event.setCurrentItem(null);
         }
+        scheduleRecipeCheck(session, dirty);
     }
 
     @EventHandler
     public void onInventoryDrag(InventoryDragEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
-        Component dragTitle = event.getView().title();
-        if (dragTitle == null) return;
-        String dragTitleText = PlainTextComponentSerializer.plainText().serialize(dragTitle);
-        if (!dragTitleText.startsWith(GUIConstants.CRAFTING_GUI_TITLE)) return;
+        if (!(event.getView().getTopInventory().getHolder(false) instanceof CraftingSession)) return;
+        CraftingSession session = (CraftingSession) event.getView().getTopInventory().getHolder(false);
 
-        boolean isEditor = dragTitleText.contains("[");
-
-        // Cancel drag into filler slots
+        // Cancel drag into filler slots, and into the computed result slot of a crafting view
         for (int rawSlot : event.getRawSlots()) {
-            if (rawSlot >= 0 && rawSlot < GUIConstants.GUI_SIZE
-                    && !GUIConstants.isRecipeSlot(rawSlot) && rawSlot != GUIConstants.RESULT_SLOT) {
+            if (rawSlot >= 0 && rawSlot < GUIConstants.GUI_SIZE && !GUIConstants.isRecipeSlot(rawSlot)
+                    && (rawSlot != GUIConstants.RESULT_SLOT || !session.isEditor())) {
                 event.setCancelled(true);
                 return;
             }
         }
 
-        // In crafting view, schedule a recipe check after drag
-        if (!isEditor) {
-            scheduleRecipeCheck(event.getView().getTopInventory(), dragTitleText);
+        // In crafting view, schedule a recipe check for the grid slots the drag touched
+        if (!session.isEditor()) {
+            int dirty = 0;
+            for (int rawSlot : event.getRawSlots()) {
+                int index = GUIConstants.gridIndex(rawSlot);
+                if (index >= 0) dirty |= 1 << index;
+            }
+            if (dirty != 0) {
+                scheduleRecipeCheck(session, dirty);
+            }
         }
     }
 
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
         if (!(event.getPlayer() instanceof Player)) return;
-        Component closeTitle = event.getView().title();
-        if (closeTitle == null) return;
-        String title = PlainTextComponentSerializer.plainText().serialize(closeTitle);
-        if (!title.startsWith(GUIConstants.CRAFTING_GUI_TITLE)) return;
+        if (!(event.getInventory().getHolder(false) instanceof CraftingSession)) return;
+        CraftingSession session = (CraftingSession) event.getInventory().getHolder(false);
+
+        // Drop any pending check; the batched task skips sessions with nothing dirty
+        session.takeDirty();
 
-        // Only save if this is an editor GUI (title contains "[recipeId]")
-        if (!title.contains("[")) return;
+        // Only save editor sessions
+        if (!session.isEditor()) return;
 
         Player player = (Player) event.getPlayer();
         Inventory inv = event.getInventory();
+        String type = session.getType();
+        String recipeId = session.getRecipeId();
 
-        // Parse type and recipeId from title: "MCCraft - {type} [{recipeId}]"
-        String afterDash = title.substring(title.indexOf("-") + 2);
-        String type = afterDash.substring(0, afterDash.indexOf("[")).trim();
-        String recipeId = afterDash.substring(afterDash.indexOf("[") + 1, afterDash.indexOf("]"));
-
-        String contents = CraftingGUI.serializeFromGUI(inv);
+        byte[] contents = CraftingGUI.serializeFromGUI(inv);
         MCCraftProvider provider = MCCraftProvider.getInstance();
         if (provider != null && contents != null) {
             provider.saveItem(recipeId, type, contents).thenRun(() ->
@@ -145,57 +213,89 @@ public class CraftingGUIListener implements Listener {
         }
     }
 
-    /**
-     * Schedules a recipe match check on the next tick (after the click/drag resolves).
-     */
-    private void scheduleRecipeCheck(Inventory inv, String titleText) {
-        Bukkit.getScheduler().runTask(
-                Bukkit.getPluginManager().getPlugin("MCCraft"),
-                () -> updateResultSlot(inv, titleText)
-        );
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        CraftingGUI.releasePlayer(event.getPlayer().getUniqueId());
     }
 
     /**
-     * Reads the 9 recipe slots from the inventory, matches against the cache,
-     * and sets or clears the result slot accordingly.
+     * Marks a crafting view as needing a recipe check on the next tick (after the click/drag resolves).
+     * Requests for the same view within a tick are merged, and all pending views are
+     * checked by a single task, so each view is matched at most once per tick.
+     *
+     * @param dirtyMask grid-index bitmask of the recipe slots the action may have changed
      */
-    private void updateResultSlot(Inventory inv, String titleText) {
-        String type = titleText.substring(titleText.indexOf("-") + 2).trim();
+    private void scheduleRecipeCheck(CraftingSession session, int dirtyMask) {
+        boolean coalesced = session.markDirty(dirtyMask);
+        if (!coalesced) pendingChecks.add(session);
+        MCCraftMetrics.getInstance().recordRecipeCheckRequest(coalesced);
 
-        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
-        ItemStack[] playerGrid = new ItemStack[9];
-        for (int i = 0; i < 9; i++) {
-            ItemStack item = inv.getItem(recipeSlots[i]);
-            playerGrid[i] = (item == null || item.getType() == Material.AIR
-                    || item.getType() == Material.RED_STAINED_GLASS_PANE) ? null : item;
+        if (!checkTaskScheduled) {
+            checkTaskScheduled = true;
+            Bukkit.getScheduler().runTask(
+                    Bukkit.getPluginManager().getPlugin("MCCraft"),
+                    this::runPendingChecks
+            );
         }
+    }
 
-        RecipeCache.CachedRecipe match = RecipeCache.getInstance().matchRecipe(type, playerGrid);
-        if (match != null && match.getResult() != null) {
-            inv.setItem(GUIConstants.RESULT_SLOT, match.getResult().clone());
-        } else {
-            inv.setItem(GUIConstants.RESULT_SLOT, null);
+    /**
+     * Runs one batched match for every crafting view marked dirty since the last tick.
+     */
+    private void runPendingChecks() {
+        checkTaskScheduled = false;
+        MCCraftMetrics metrics = MCCraftMetrics.getInstance();
+        for (CraftingSession session : pendingChecks) {
+            int dirtyMask = session.takeDirty();
+            if (dirtyMask == 0) continue;
+            updateResultSlot(session, dirtyMask);
+            metrics.recordRecipeCheckRun();
         }
+        pendingChecks.clear();
+    }
+
+    /**
+     * Re-reads the changed recipe slots, updates the incremental match,
+     * and sets or clears the result slot when the matched recipe changed.
+     * An unchanged match whose result the slot still shows writes nothing,
+     * so no clone and no slot packet.
+     */
+    private void updateResultSlot(CraftingSession session, int dirtyMask) {
+        Inventory inv = session.getInventory();
+        RecipeCache.CachedRecipe match = session.getMatcher().update(inv, dirtyMask);
+        if (match != null && match.getResult() == null) match = null;
+
+        boolean unchanged = match == session.getShownRecipe() && showsResult(inv, match);
+        MCCraftMetrics.getInstance().recordResultSlotUpdate(unchanged);
+        if (unchanged) return;
+
+        session.setShownRecipe(match);
+        inv.setItem(GUIConstants.RESULT_SLOT, match != null ? match.getResult().clone() : null);
+    }
+
+    /**
+     * Checks that the result slot holds exactly the result of a recipe, or is empty for none.
+     */
+    private boolean showsResult(Inventory inv, RecipeCache.CachedRecipe recipe) {
+        ItemStack shown = inv.getItem(GUIConstants.RESULT_SLOT);
+        if (recipe == null) return shown == null || shown.getType().isAir();
+        ItemStack result = recipe.getResult();
+        return shown != null && shown.getAmount() == result.getAmount() && shown.isSimilar(result);
     }
 
     /**
      * Handles the logic when a player clicks the result slot in a crafting view.
      * Validates the head item requirement, decrements ingredients, and gives the result.
      */
-    private void handleCraftResult(InventoryClickEvent event, Player player, String titleText, boolean isDropAction) {
-        String type = titleText.substring(titleText.indexOf("-") + 2).trim();
-        Inventory inv = event.getView().getTopInventory();
+    private void handleCraftResult(InventoryClickEvent event, Player player, CraftingSession session, boolean isDropAction) {
+        String type = session.getType();
+        Inventory inv = session.getInventory();
 
-        // Read the current grid
+        // Bring the match up to date; a pending check may not have run yet this tick
         int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
-        ItemStack[] playerGrid = new ItemStack[9];
-        for (int i = 0; i < 9; i++) {
-            ItemStack item = inv.getItem(recipeSlots[i]);
-            playerGrid[i] = (item == null || item.getType() == Material.AIR
-                    || item.getType() == Material.RED_STAINED_GLASS_PANE) ? null : item;
-        }
-
-        RecipeCache.CachedRecipe match = RecipeCache.getInstance().matchRecipe(type, playerGrid);
+        GridMatcher matcher = session.getMatcher();
+        RecipeCache.CachedRecipe match = matcher.update(inv, GUIConstants.ALL_RECIPE_SLOTS);
+        PackedGrid playerGrid = matcher.getGrid();
         if (match == null || match.getResult() == null) {
             event.setCancelled(true);
             return;
@@ -203,28 +303,29 @@ public class CraftingGUIListener implements Listener {
 
         // Check for head item in player's inventory (non-default types)
         if (!"default".equalsIgnoreCase(type)) {
-            ItemStack headItem = findHeadItem(player, type);
-            if (headItem == null) {
+            int headSlot = findHeadSlot(player, session);
+            if (headSlot < 0) {
                 event.setCancelled(true);
                 player.sendMessage(Component.translatable("mcengine.mccraft.msg.craft.no.head")
                         .arguments(Component.text(type)).color(NamedTextColor.RED));
                 return;
             }
             // Decrement the head item
+            ItemStack headItem = player.getInventory().getItem(headSlot);
             if (headItem.getAmount() > 1) {
                 headItem.setAmount(headItem.getAmount() - 1);
             } else {
-                player.getInventory().remove(headItem);
+                player.getInventory().setItem(headSlot, null);
             }
         }
 
         // Decrement ingredients from the grid
-        ItemStack[] recipeGrid = match.getGrid();
+        PackedGrid recipeGrid = match.getPattern();
         for (int i = 0; i < 9; i++) {
-            if (recipeGrid[i] != null && !recipeGrid[i].getType().isAir()) {
+            if (!recipeGrid.isEmpty(i)) {
                 ItemStack slotItem = inv.getItem(recipeSlots[i]);
                 if (slotItem != null) {
-                    int remaining = slotItem.getAmount() - recipeGrid[i].getAmount();
+                    int remaining = playerGrid.getAmount(i) - recipeGrid.getAmount(i);
                     if (remaining <= 0) {
                         inv.setItem(recipeSlots[i], null);
                     } else {
@@ -267,25 +368,216 @@ public class CraftingGUIListener implements Listener {
         }
 
         // Re-check recipe after consuming ingredients
-        scheduleRecipeCheck(inv, titleText);
+        scheduleRecipeCheck(session, recipeGrid.getOccupancy());
+    }
+
+    /**
+     * Handles a shift-click on the result slot of a crafting view: crafts repeatedly until the
+     * grid or the head items run out, or the next result no longer fits in the player's
+     * inventory, with the same outcome as that many single crafts.
+     * The crafts are simulated on a copy of the primitive grid and of the player's storage;
+     * the inventory is then updated once per changed grid slot and the results are inserted
+     * with one addItem call.
+     */
+    private void handleCraftMax(InventoryClickEvent event, Player player, CraftingSession session) {
+        event.setCancelled(true);
+        String type = session.getType();
+        Inventory inv = session.getInventory();
+        int[] recipeSlots = GUIConstants.RECIPE_SLOTS;
+
+        GridMatcher matcher = session.getMatcher();
+        RecipeCache.CachedRecipe first = matcher.update(inv, GUIConstants.ALL_RECIPE_SLOTS);
+        if (first == null || first.getResult() == null) return;
+
+        // Head items bound the number of crafts for non-default types
+        boolean needsHead = !"default".equalsIgnoreCase(type);
+        int headBudget = needsHead ? countHeadItems(player, type) : MAX_BULK_CRAFTS;
+        if (headBudget == 0) {
+            player.sendMessage(Component.translatable("mcengine.mccraft.msg.craft.no.head")
+                    .arguments(Component.text(type)).color(NamedTextColor.RED));
+            return;
+        }
+
+        // Simulate single crafts: each one re-matches the remaining grid, like a click would
+        PackedGrid playerGrid = matcher.getGrid();
+        PackedGrid simulated = new PackedGrid().copyFrom(playerGrid);
+        ItemStack[] storage = copyStorage(player.getInventory());
+        RecipeCache cache = RecipeCache.getInstance();
+        Map<RecipeCache.CachedRecipe, Integer> crafted = new LinkedHashMap<>();
+        int crafts = 0;
+        RecipeCache.CachedRecipe match = first;
+        while (match != null && match.getResult() != null && crafts < headBudget && crafts < MAX_BULK_CRAFTS) {
+            PackedGrid recipeGrid = match.getPattern();
+            if (recipeGrid.getOccupancy() == 0) break;
+            // Heads are taken before results are added, so a used-up head stack frees its slot
+            if (needsHead) removeOneHead(storage, type);
+            // Stop like vanilla shift-crafting once the result no longer fits
+            if (!insertIfFits(storage, match.getResult())) break;
+            for (int i = 0; i < 9; i++) {
+                if (recipeGrid.isEmpty(i)) continue;
+                int remaining = simulated.getAmount(i) - recipeGrid.getAmount(i);
+                simulated.setSlot(i, remaining <= 0 ? PackedGrid.EMPTY : simulated.getMaterial(i), remaining);
+            }
+            crafted.merge(match, 1, Integer::sum);
+            crafts++;
+            match = cache.matchRecipe(type, simulated);
+        }
+
+        // Apply the consumed ingredients, one write per changed slot
+        for (int i = 0; i < 9; i++) {
+            if (simulated.getAmount(i) == playerGrid.getAmount(i)) continue;
+            if (simulated.isEmpty(i)) {
+                inv.setItem(recipeSlots[i], null);
+            } else {
+                ItemStack slotItem = inv.getItem(recipeSlots[i]);
+                if (slotItem != null) slotItem.setAmount(simulated.getAmount(i));
+            }
+        }
+        if (needsHead) consumeHeadItems(player, session, crafts);
+
+        // Insert all results at once, split into valid stack sizes
+        List<ItemStack> results = new ArrayList<>();
+        for (Map.Entry<RecipeCache.CachedRecipe, Integer> entry : crafted.entrySet()) {
+            ItemStack result = entry.getKey().getResult();
+            int maxStack = Math.max(1, result.getMaxStackSize());
+            int total = result.getAmount() * entry.getValue();
+            while (total > 0) {
+                int amount = Math.min(maxStack, total);
+                ItemStack stack = result.clone();
+                stack.setAmount(amount);
+                results.add(stack);
+                total -= amount;
+            }
+        }
+        // The simulation already checked the room; dropping is only a safety net
+        Map<Integer, ItemStack> overflow = player.getInventory().addItem(results.toArray(new ItemStack[0]));
+        overflow.values().forEach(item -> player.getWorld().dropItemNaturally(player.getLocation(), item));
+
+        scheduleRecipeCheck(session, GUIConstants.ALL_RECIPE_SLOTS);
+    }
+
+    /**
+     * Copies the player's storage slots, the ones addItem fills, for simulating crafts.
+     */
+    private ItemStack[] copyStorage(PlayerInventory inventory) {
+        ItemStack[] storage = inventory.getStorageContents();
+        for (int i = 0; i < storage.length; i++) {
+            if (storage[i] != null) storage[i] = storage[i].clone();
+        }
+        return storage;
     }
 
     /**
-     * Finds the head item with the matching mccraft_type in the player's inventory.
+     * Removes one head item of a type from simulated storage. Heads held outside the
+     * storage slots (off hand, armor) do not change the room for results.
      */
-    private ItemStack findHeadItem(Player player, String type) {
+    private void removeOneHead(ItemStack[] storage, String type) {
+        for (int i = 0; i < storage.length; i++) {
+            if (!HeadItemDetector.isHeadItem(storage[i], type)) continue;
+            if (storage[i].getAmount() > 1) {
+                storage[i].setAmount(storage[i].getAmount() - 1);
+            } else {
+                storage[i] = null;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Adds a result to simulated storage the way addItem would, if all of it fits.
+     *
+     * @return false, leaving the storage untouched, if the result does not fit
+     */
+    private boolean insertIfFits(ItemStack[] storage, ItemStack result) {
+        int maxStack = Math.max(1, result.getMaxStackSize());
+        int needed = result.getAmount();
+        int room = 0;
+        for (ItemStack stack : storage) {
+            if (isEmptySlot(stack)) {
+                room += maxStack;
+            } else if (stack.isSimilar(result)) {
+                room += Math.max(0, maxStack - stack.getAmount());
+            }
+            if (room >= needed) break;
+        }
+        if (room < needed) return false;
+
+        // Fill partial stacks first, then empty slots, as addItem does
+        for (ItemStack stack : storage) {
+            if (needed == 0) return true;
+            if (isEmptySlot(stack) || !stack.isSimilar(result)) continue;
+            int added = Math.min(needed, maxStack - stack.getAmount());
+            if (added <= 0) continue;
+            stack.setAmount(stack.getAmount() + added);
+            needed -= added;
+        }
+        for (int i = 0; i < storage.length && needed > 0; i++) {
+            if (!isEmptySlot(storage[i])) continue;
+            ItemStack stack = result.clone();
+            stack.setAmount(Math.min(needed, maxStack));
+            storage[i] = stack;
+            needed -= stack.getAmount();
+        }
+        return true;
+    }
+
+    private boolean isEmptySlot(ItemStack item) {
+        return item == null || item.getType() == Material.AIR;
+    }
+
+    /**
+     * Counts the head items of a type across the player's inventory.
+     */
+    private int countHeadItems(Player player, String type) {
+        int count = 0;
         for (ItemStack item : player.getInventory().getContents()) {
-            if (item == null || item.getType() == Material.AIR) continue;
-            ItemMeta meta = item.getItemMeta();
-            if (meta == null) continue;
-            PersistentDataContainer pdc = meta.getPersistentDataContainer();
-            if (pdc.has(MCCRAFT_TYPE_KEY, PersistentDataType.STRING)) {
-                String value = pdc.get(MCCRAFT_TYPE_KEY, PersistentDataType.STRING);
-                if (type.equals(value)) {
-                    return item;
-                }
+            if (HeadItemDetector.isHeadItem(item, type)) count += item.getAmount();
+        }
+        return count;
+    }
+
+    /**
+     * Removes head items of the session's type, starting at the hinted slot.
+     */
+    private void consumeHeadItems(Player player, CraftingSession session, int amount) {
+        PlayerInventory inventory = player.getInventory();
+        while (amount > 0) {
+            int slot = findHeadSlot(player, session);
+            if (slot < 0) return;
+            ItemStack headItem = inventory.getItem(slot);
+            int taken = Math.min(amount, headItem.getAmount());
+            if (taken < headItem.getAmount()) {
+                headItem.setAmount(headItem.getAmount() - taken);
+            } else {
+                inventory.setItem(slot, null);
+            }
+            amount -= taken;
+        }
+    }
+
+    /**
+     * Finds the player inventory slot holding a head item of the session's type.
+     * The slot found for the previous craft is checked first, so repeated crafts
+     * cost one item read; a miss falls back to one scan and refreshes the hint.
+     *
+     * @return the slot, or -1 if the player has no head item of that type
+     */
+    private int findHeadSlot(Player player, CraftingSession session) {
+        PlayerInventory inventory = player.getInventory();
+        String type = session.getType();
+        int hint = session.getHeadSlotHint();
+        if (hint >= 0 && hint < inventory.getSize() && HeadItemDetector.isHeadItem(inventory.getItem(hint), type)) {
+            return hint;
+        }
+        ItemStack[] contents = inventory.getContents();
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (HeadItemDetector.isHeadItem(contents[slot], type)) {
+                session.setHeadSlotHint(slot);
+                return slot;
             }
         }
-        return null;
+        session.setHeadSlotHint(-1);
+        return -1;
     }
+
 }
@@ -1,51 +1,56 @@
 package io.github.mcengine.mccraft.common.listener;
 
 import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.gui.CraftingGUI;
-import io.github.mcengine.mccraft.common.util.GUIConstants;
+import io.github.mcengine.mccraft.common.gui.EditorListGUI;
+import io.github.mcengine.mccraft.common.gui.EditorListSession;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
 /**
  * Handles clicks in the editor list GUI.
- * When a player clicks an item, it opens the crafting editor for that recipe.
+ * When a player clicks an item, it opens the crafting editor for that recipe;
+ * the bottom-row arrows switch pages.
  */
 public class EditorListGUIListener implements Listener {
 
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
-        Component title = event.getView().title();
-        if (title == null) return;
-        String titleText = PlainTextComponentSerializer.plainText().serialize(title);
-        if (!titleText.startsWith(GUIConstants.EDITOR_LIST_TITLE)) return;
+        if (!(event.getView().getTopInventory().getHolder(false) instanceof EditorListSession)) return;
+        EditorListSession session = (EditorListSession) event.getView().getTopInventory().getHolder(false);
 
         event.setCancelled(true);
 
         Player player = (Player) event.getWhoClicked();
-        ItemStack clicked = event.getCurrentItem();
 
-        if (clicked == null || !clicked.hasItemMeta()) return;
+        // Page controls re-render the same inventory
+        if (event.getRawSlot() == EditorListGUI.PREVIOUS_SLOT) {
+            EditorListGUI.showPage(session, session.getPage() - 1);
+            return;
+        }
+        if (event.getRawSlot() == EditorListGUI.NEXT_SLOT) {
+            EditorListGUI.showPage(session, session.getPage() + 1);
+            return;
+        }
 
-        ItemMeta meta = clicked.getItemMeta();
-        if (meta == null || !meta.hasDisplayName()) return;
+        // The session knows which recipe each slot of the current page shows
+        String recipeId = session.getRecipeId(event.getRawSlot());
+        if (recipeId == null) return;
 
-        // Extract the recipe id from the display name
-        Component displayName = meta.displayName();
-        if (displayName == null) return;
+        String type = session.getType();
 
-        // The display name is set as the recipe id (plain text)
-        String recipeId = net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer.plainText().serialize(displayName);
-
-        // Parse type from title: "MCCraft Editor - {type}"
-        String type = titleText.substring(titleText.indexOf("-") + 2).trim();
+        // Serve the recipe from the cache when it is there; fall back to the database otherwise
+        RecipeCache.CachedRecipe cached = RecipeCache.getInstance().getRecipe(recipeId);
+        if (cached != null) {
+            CraftingGUI.openEditorWithData(player, type, recipeId, cached);
+            return;
+        }
 
         MCCraftProvider provider = MCCraftProvider.getInstance();
         if (provider == null) return;
@@ -1,20 +1,16 @@
 package io.github.mcengine.mccraft.common.listener;
 
+import io.github.mcengine.mccraft.common.MCCraftProvider;
 import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.gui.CraftingGUI;
+import io.github.mcengine.mccraft.common.util.HeadItemDetector;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataContainer;
-import org.bukkit.persistence.PersistentDataType;
 
 /**
  * Handles right-click with a head item to open the crafting GUI,
@@ -22,22 +18,39 @@ import org.bukkit.persistence.PersistentDataType;
  */
 public class HeadItemInteractListener implements Listener {
 
-    private static final NamespacedKey MCCRAFT_TYPE_KEY = new NamespacedKey("mccraft", "mccraft_type");
-
     @EventHandler
     public void onPlayerInteract(PlayerInteractEvent event) {
         if (!event.getAction().isRightClick()) return;
 
         Player player = event.getPlayer();
-        ItemStack item = event.getItem();
-        if (item == null || item.getType() == Material.AIR) return;
-
-        String type = getMCCraftType(item);
+        String type = HeadItemDetector.getType(event.getItem());
         if (type == null) return;
 
         // Cancel the interaction (prevent placing the head)
         event.setCancelled(true);
 
+        // Cold types may have been evicted from the cache; read them back before opening
+        if (!RecipeCache.getInstance().isResident(type)) {
+            MCCraftProvider provider = MCCraftProvider.getInstance();
+            if (provider == null) return;
+            provider.loadType(type).thenRun(() -> player.getServer().getScheduler().runTask(
+                    player.getServer().getPluginManager().getPlugin("MCCraft"),
+                    () -> openCraftingView(player, type)
+            )).exceptionally(ex -> {
+                player.sendMessage(Component.translatable("mcengine.mccraft.msg.error")
+                        .arguments(Component.text(ex.getMessage())).color(NamedTextColor.RED));
+                return null;
+            });
+            return;
+        }
+
+        openCraftingView(player, type);
+    }
+
+    /**
+     * Opens the crafting view for a resident type, or tells the player it has no recipes.
+     */
+    private void openCraftingView(Player player, String type) {
         // Check cache for recipes of this type
         RecipeCache cache = RecipeCache.getInstance();
         if (cache.getRecipes(type).isEmpty()) {
@@ -52,22 +65,10 @@ public class HeadItemInteractListener implements Listener {
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent event) {
-        ItemStack item = event.getItemInHand();
-        if (getMCCraftType(item) != null) {
+        if (HeadItemDetector.getType(event.getItemInHand()) != null) {
             event.setCancelled(true);
             event.getPlayer().sendMessage(Component.translatable("mcengine.mccraft.msg.place.protected")
                     .color(NamedTextColor.RED));
         }
     }
-
-    private String getMCCraftType(ItemStack item) {
-        if (item == null || item.getType() == Material.AIR) return null;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return null;
-        PersistentDataContainer pdc = meta.getPersistentDataContainer();
-        if (pdc.has(MCCRAFT_TYPE_KEY, PersistentDataType.STRING)) {
-            return pdc.get(MCCRAFT_TYPE_KEY, PersistentDataType.STRING);
-        }
-        return null;
-    }
 }
@@ -26,6 +26,9 @@ public final class GUIConstants {
     /** Title prefix for the editor list GUI. */
     public static final String EDITOR_LIST_TITLE = "MCCraft Editor";
 
+    /** Grid-index bitmask covering all 9 recipe slots. */
+    public static final int ALL_RECIPE_SLOTS = (1 << 9) - 1;
+
     /** Set of recipe slot indices for quick lookup. */
     public static final Set<Integer> RECIPE_SLOT_SET;
 
@@ -46,4 +49,17 @@ public final class GUIConstants {
     public static boolean isRecipeSlot(int slot) {
         return RECIPE_SLOT_SET.contains(slot);
     }
+
+    /**
+     * Maps a raw inventory slot to its index in the 3x3 recipe grid.
+     *
+     * @param slot the raw slot index
+     * @return the grid index (0-8), or -1 if it is not a recipe slot
+     */
+    public static int gridIndex(int slot) {
+        for (int i = 0; i < RECIPE_SLOTS.length; i++) {
+            if (RECIPE_SLOTS[i] == slot) return i;
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,53 @@
+package io.github.mcengine.mccraft.common.util;
+
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * Fast detection of MCCraft head items.
+ * <p>
+ * Most items seen by the interact, place and drop listeners are plain stacks
+ * without item meta; those are rejected without touching the PDC unless their
+ * material is used by a head item registered in {@link RecipeCache}. The material
+ * bitset is not authoritative: a head item whose material the cache does not
+ * currently list (type just changed, reload in progress) must still be recognised,
+ * so every item that has meta (named, enchanted or damaged items included) is read
+ * through the PDC. That read uses the read-only view of the ItemStack, so no
+ * {@link org.bukkit.inventory.meta.ItemMeta} is ever cloned.
+ */
+public final class HeadItemDetector {
+
+    /** PDC key stamped on head items, holding the station type. */
+    public static final NamespacedKey TYPE_KEY = new NamespacedKey("mccraft", "mccraft_type");
+
+    private HeadItemDetector() {}
+
+    /**
+     * Gets the station type of a head item.
+     *
+     * @param item the item, may be null
+     * @return the mccraft_type value, or null if the item is not a head item
+     */
+    public static String getType(ItemStack item) {
+        if (item == null) return null;
+        Material material = item.getType();
+        if (material.isAir()) return null;
+        // Only meta-less stacks of unlisted materials are rejected up front; without meta there is no PDC
+        if (!RecipeCache.getInstance().isHeadMaterial(material) && !item.hasItemMeta()) return null;
+        return item.getPersistentDataContainer().get(TYPE_KEY, PersistentDataType.STRING);
+    }
+
+    /**
+     * Checks whether an item is a head item of the given type.
+     *
+     * @param item the item, may be null
+     * @param type the station type
+     * @return true if the item's mccraft_type equals the type
+     */
+    public static boolean isHeadItem(ItemStack item, String type) {
+        return type.equals(getType(item));
+    }
+}
@@ -2,18 +2,64 @@ package io.github.mcengine.mccraft.common.util;
 
 import org.bukkit.inventory.ItemStack;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 
 /**
  * Utility class for serializing and deserializing {@link ItemStack} objects to/from Base64 strings.
  * Uses Paper's NBT-based {@code serializeAsBytes}/{@code deserializeBytes} API (no deprecated streams).
+ * <p>
+ * Array payloads come in two formats, told apart by their first byte:
+ * <ul>
+ *   <li>plain: the item count as a 4-byte int (first byte 0), then each item's length and bytes;</li>
+ *   <li>compressed: {@link #COMPRESSED_MAGIC}, a dictionary version, the inflated length, then a
+ *       Deflate stream using that preset dictionary. Inside, each item is stored as its raw NBT
+ *       where Paper's per-item gzip could be undone, so repeated keys compress across items.</li>
+ * </ul>
+ * Both are always read; {@link #setCompression} only decides what new payloads use.
  */
 public final class ItemSerializer {
 
+    /** First byte of a compressed payload; a plain payload starts with the high byte of its item count. */
+    private static final byte COMPRESSED_MAGIC = (byte) 0xC5;
+
+    /** Version of {@link #DICTIONARY_V1}. Payloads name the dictionary they were written with. */
+    private static final byte DICTIONARY_VERSION_1 = 1;
+
+    /** Built-in preset dictionary. Stored payloads depend on it: never change it, add a new version. */
+    private static final byte[] DICTIONARY_V1 = buildDictionaryV1();
+
+    /** Item flag inside a compressed payload: bytes as returned by {@code serializeAsBytes}. */
+    private static final byte ITEM_AS_SERIALIZED = 0;
+    /** Item flag inside a compressed payload: Paper's gzip was removed and must be put back. */
+    private static final byte ITEM_RAW_NBT = 1;
+
+    private static final int HEADER_LENGTH = 6;
+
+    private static volatile boolean compression;
+
     private ItemSerializer() {}
 
+    /**
+     * Sets whether new array payloads are written compressed. Existing payloads stay
+     * readable in either format.
+     *
+     * @param enabled true to compress new payloads
+     */
+    public static void setCompression(boolean enabled) {
+        compression = enabled;
+    }
+
     /**
      * Serializes an ItemStack to a Base64-encoded string.
      *
@@ -53,21 +99,47 @@ public final class ItemSerializer {
      * @return the Base64 string, or null if serialization fails
      */
     public static String arrayToBase64(ItemStack[] items) {
+        byte[] data = arrayToBytes(items);
+        return data == null ? null : Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * Serializes an array of ItemStacks (recipe grid) to the raw array payload stored in the database.
+     *
+     * @param items the items array to serialize
+     * @return the raw payload, or null if serialization fails
+     */
+    public static byte[] arrayToBytes(ItemStack[] items) {
         if (items == null) return null;
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            // Write length as 4-byte int
-            baos.write(ByteBuffer.allocate(4).putInt(items.length).array());
-            for (ItemStack item : items) {
-                if (item == null) {
-                    baos.write(ByteBuffer.allocate(4).putInt(0).array());
+            byte[][] serialized = new byte[items.length][];
+            int plainLength = 4;
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] != null) {
+                    serialized[i] = items[i].serializeAsBytes();
+                    plainLength += serialized[i].length;
+                }
+                plainLength += 4;
+            }
+            if (compression) {
+                byte[] compressed = compress(serialized);
+                // Never store a compressed payload that came out larger
+                if (compressed.length < plainLength) {
+                    MCCraftMetrics.getInstance().recordPayloadCompressed(plainLength, compressed.length);
+                    return compressed;
+                }
+            }
+            ByteBuffer buf = ByteBuffer.allocate(plainLength);
+            buf.putInt(items.length);
+            for (byte[] itemBytes : serialized) {
+                if (itemBytes == null) {
+                    buf.putInt(0);
                 } else {
-                    byte[] itemBytes = item.serializeAsBytes();
-                    baos.write(ByteBuffer.allocate(4).putInt(itemBytes.length).array());
-                    baos.write(itemBytes);
+                    buf.putInt(itemBytes.length);
+                    buf.put(itemBytes);
                 }
             }
-            return Base64.getEncoder().encodeToString(baos.toByteArray());
+            return buf.array();
         } catch (Exception e) {
             return null;
         }
@@ -80,13 +152,52 @@ public final class ItemSerializer {
      * @return the deserialized ItemStack array, or null if deserialization fails
      */
     public static ItemStack[] arrayFromBase64(String base64) {
+        return arrayFromBytes(bytesFromBase64(base64));
+    }
+
+    /**
+     * Decodes a Base64 string into the raw serialized array payload without deserializing any item.
+     *
+     * @param base64 the Base64 string
+     * @return the raw payload, or null if the string is empty or not valid Base64
+     */
+    public static byte[] bytesFromBase64(String base64) {
         if (base64 == null || base64.isEmpty()) return null;
         try {
-            byte[] data = Base64.getDecoder().decode(base64);
+            return Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deserializes an array of ItemStacks from a raw serialized array payload.
+     *
+     * @param data the raw payload
+     * @return the deserialized ItemStack array, or null if deserialization fails
+     */
+    public static ItemStack[] arrayFromBytes(byte[] data) {
+        return arrayFromBytes(data, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Deserializes only the first {@code limit} items of a raw serialized array payload.
+     * The remaining entries of the returned array are left null and cost nothing to skip.
+     *
+     * @param data  the raw payload
+     * @param limit the number of leading items to deserialize
+     * @return the ItemStack array (full length), or null if deserialization fails
+     */
+    public static ItemStack[] arrayFromBytes(byte[] data, int limit) {
+        if (data == null) return null;
+        try {
+            if (data.length > 0 && data[0] == COMPRESSED_MAGIC) {
+                return compressedArrayFromBytes(data, limit);
+            }
             ByteBuffer buf = ByteBuffer.wrap(data);
             int length = buf.getInt();
             ItemStack[] items = new ItemStack[length];
-            for (int i = 0; i < length; i++) {
+            for (int i = 0; i < length && i < limit; i++) {
                 int itemLen = buf.getInt();
                 if (itemLen == 0) {
                     items[i] = null;
@@ -101,4 +212,167 @@ public final class ItemSerializer {
             return null;
         }
     }
+
+    // --- Compressed format ---
+
+    /**
+     * Writes serialized items in the compressed format.
+     */
+    private static byte[] compress(byte[][] serialized) throws IOException {
+        ByteArrayOutputStream innerBytes = new ByteArrayOutputStream();
+        DataOutputStream inner = new DataOutputStream(innerBytes);
+        inner.writeInt(serialized.length);
+        for (byte[] itemBytes : serialized) {
+            if (itemBytes == null) {
+                inner.writeInt(0);
+                continue;
+            }
+            byte[] nbt = gunzip(itemBytes);
+            byte[] stored = nbt != null ? nbt : itemBytes;
+            inner.writeInt(stored.length + 1);
+            inner.writeByte(nbt != null ? ITEM_RAW_NBT : ITEM_AS_SERIALIZED);
+            inner.write(stored);
+        }
+        byte[] input = innerBytes.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + HEADER_LENGTH);
+        out.write(COMPRESSED_MAGIC);
+        out.write(DICTIONARY_VERSION_1);
+        out.write(ByteBuffer.allocate(4).putInt(input.length).array());
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] chunk = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a compressed payload. The time spent inflating and restoring Paper's
+     * per-item gzip is recorded as the decode cost of compression.
+     */
+    private static ItemStack[] compressedArrayFromBytes(byte[] data, int limit) throws IOException, DataFormatException {
+        long started = System.nanoTime();
+        if (data.length < HEADER_LENGTH || data[1] != DICTIONARY_VERSION_1) return null;
+        int innerLength = ByteBuffer.wrap(data, 2, 4).getInt();
+        byte[] inner = new byte[innerLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            int read = 0;
+            while (read < innerLength) {
+                int n = inflater.inflate(inner, read, innerLength - read);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY_V1);
+                        continue;
+                    }
+                    if (inflater.finished() || inflater.needsInput()) return null;
+                }
+                read += n;
+            }
+        } finally {
+            inflater.end();
+        }
+
+        long overhead = System.nanoTime() - started;
+        ByteBuffer buf = ByteBuffer.wrap(inner);
+        int length = buf.getInt();
+        ItemStack[] items = new ItemStack[length];
+        for (int i = 0; i < length && i < limit; i++) {
+            int itemLen = buf.getInt();
+            if (itemLen == 0) continue;
+            byte flag = buf.get();
+            byte[] itemBytes = new byte[itemLen - 1];
+            buf.get(itemBytes);
+            if (flag == ITEM_RAW_NBT) {
+                long wrapStarted = System.nanoTime();
+                itemBytes = gzipStored(itemBytes);
+                overhead += System.nanoTime() - wrapStarted;
+            }
+            items[i] = ItemStack.deserializeBytes(itemBytes);
+        }
+        MCCraftMetrics.getInstance().recordPayloadDecompressed(overhead);
+        return items;
+    }
+
+    /**
+     * Undoes the gzip Paper applies to each serialized item.
+     *
+     * @return the raw NBT, or null if the bytes are not gzip
+     */
+    private static byte[] gunzip(byte[] data) {
+        if (data.length < 2 || data[0] != (byte) 0x1f || data[1] != (byte) 0x8b) return null;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wraps raw NBT back into gzip for {@code deserializeBytes}. Stored blocks only:
+     * the cost is a copy and a CRC, not a second compression.
+     */
+    private static byte[] gzipStored(byte[] nbt) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(nbt.length + 32);
+        try (GZIPOutputStream gzip = new StoredGzipOutputStream(out, nbt.length)) {
+            gzip.write(nbt);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class StoredGzipOutputStream extends GZIPOutputStream {
+        StoredGzipOutputStream(OutputStream out, int size) throws IOException {
+            super(out, Math.max(512, size));
+            def.setLevel(Deflater.NO_COMPRESSION);
+        }
+    }
+
+    /**
+     * Builds the version 1 preset dictionary from fragments that recur in serialized
+     * items, encoded the way NBT encodes them. Deflate reaches the end of the
+     * dictionary most cheaply, so the most common fragments come last.
+     */
+    private static byte[] buildDictionaryV1() {
+        String[] values = {
+                "white", "gray", "dark_gray", "gold", "yellow", "green", "dark_green", "aqua",
+                "red", "dark_red", "light_purple", "dark_purple", "blue",
+                "minecraft:oak_planks", "minecraft:redstone", "minecraft:netherite_ingot", "minecraft:emerald",
+                "minecraft:paper", "minecraft:stick", "minecraft:gold_ingot", "minecraft:iron_ingot",
+                "minecraft:diamond", "minecraft:player_head",
+                "minecraft:potion_contents", "minecraft:dyed_color", "minecraft:attribute_modifiers",
+                "minecraft:enchantment_glint_override", "minecraft:unbreakable", "minecraft:damage",
+                "minecraft:profile", "minecraft:custom_model_data", "minecraft:item_name",
+                "minecraft:enchantments", "minecraft:custom_data", "minecraft:lore", "minecraft:custom_name",
+                "mccraft:mccraft_type", "PublicBukkitValues"
+        };
+        // Tag type and name, as written before each named NBT tag
+        Object[][] names = {
+                {9, "properties"}, {8, "value"}, {8, "name"}, {10, "levels"},
+                {9, "extra"}, {1, "bold"}, {1, "italic"}, {8, "color"}, {8, "text"},
+                {10, "components"}, {3, "DataVersion"}, {3, "count"}, {8, "id"}
+        };
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+            for (Object[] name : names) {
+                out.writeByte((Integer) name[0]);
+                out.writeUTF((String) name[1]);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,221 @@
+package io.github.mcengine.mccraft.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters for the MCCraft cache and crafting hot paths.
+ * All counters are lock-free and safe to update from any thread.
+ */
+public final class MCCraftMetrics {
+
+    private static final MCCraftMetrics INSTANCE = new MCCraftMetrics();
+
+    private final LongAdder typeEvictions = new LongAdder();
+    private final LongAdder typeLoads = new LongAdder();
+    private final LongAdder typeLoadNanos = new LongAdder();
+    private final AtomicLong lastTypeLoadNanos = new AtomicLong();
+    private final LongAdder recipeChecksRequested = new LongAdder();
+    private final LongAdder recipeChecksCoalesced = new LongAdder();
+    private final LongAdder recipeChecksRun = new LongAdder();
+    private final LongAdder resultSlotWrites = new LongAdder();
+    private final LongAdder resultSlotWritesAvoided = new LongAdder();
+    private final LongAdder writesQueued = new LongAdder();
+    private final LongAdder writesCoalesced = new LongAdder();
+    private final LongAdder writesFlushed = new LongAdder();
+    private final LongAdder writeFlushes = new LongAdder();
+    private final LongAdder payloadsCompressed = new LongAdder();
+    private final LongAdder payloadPlainBytes = new LongAdder();
+    private final LongAdder payloadStoredBytes = new LongAdder();
+    private final LongAdder payloadsDecompressed = new LongAdder();
+    private final LongAdder payloadDecompressNanos = new LongAdder();
+
+    private MCCraftMetrics() {}
+
+    public static MCCraftMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records that a whole cold type was evicted from the recipe cache.
+     */
+    public void recordTypeEviction() {
+        typeEvictions.increment();
+    }
+
+    /**
+     * Records an evicted type being read back from the database.
+     *
+     * @param nanos the time the reload took, in nanoseconds
+     */
+    public void recordTypeLoad(long nanos) {
+        typeLoads.increment();
+        typeLoadNanos.add(nanos);
+        lastTypeLoadNanos.set(nanos);
+    }
+
+    public long getTypeEvictions() {
+        return typeEvictions.sum();
+    }
+
+    public long getTypeLoads() {
+        return typeLoads.sum();
+    }
+
+    /**
+     * Gets the average reload latency of evicted types, in milliseconds.
+     */
+    public double getAverageTypeLoadMillis() {
+        long loads = typeLoads.sum();
+        return loads == 0 ? 0 : (double) typeLoadNanos.sum() / loads / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the latency of the most recent evicted-type reload, in milliseconds.
+     */
+    public double getLastTypeLoadMillis() {
+        return (double) lastTypeLoadNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Records a crafting view asking for a recipe re-check.
+     *
+     * @param coalesced true if the view already had a check pending this tick
+     */
+    public void recordRecipeCheckRequest(boolean coalesced) {
+        recipeChecksRequested.increment();
+        if (coalesced) recipeChecksCoalesced.increment();
+    }
+
+    /**
+     * Records a batched recipe check actually running for one crafting view.
+     */
+    public void recordRecipeCheckRun() {
+        recipeChecksRun.increment();
+    }
+
+    /**
+     * Records a recipe check deciding whether to rewrite a crafting view's result slot.
+     *
+     * @param avoided true if the match was unchanged and no slot update was sent
+     */
+    public void recordResultSlotUpdate(boolean avoided) {
+        if (avoided) {
+            resultSlotWritesAvoided.increment();
+        } else {
+            resultSlotWrites.increment();
+        }
+    }
+
+    public long getResultSlotWrites() {
+        return resultSlotWrites.sum();
+    }
+
+    public long getResultSlotWritesAvoided() {
+        return resultSlotWritesAvoided.sum();
+    }
+
+    public long getRecipeChecksRequested() {
+        return recipeChecksRequested.sum();
+    }
+
+    public long getRecipeChecksCoalesced() {
+        return recipeChecksCoalesced.sum();
+    }
+
+    public long getRecipeChecksRun() {
+        return recipeChecksRun.sum();
+    }
+
+    /**
+     * Records a recipe save or delete entering the write-behind queue.
+     *
+     * @param coalesced true if it replaced a queued write of the same recipe
+     */
+    public void recordWriteQueued(boolean coalesced) {
+        writesQueued.increment();
+        if (coalesced) writesCoalesced.increment();
+    }
+
+    /**
+     * Records a write-behind flush.
+     *
+     * @param rows the number of queued writes it stored
+     */
+    public void recordWriteFlush(int rows) {
+        if (rows == 0) return;
+        writeFlushes.increment();
+        writesFlushed.add(rows);
+    }
+
+    public long getWritesQueued() {
+        return writesQueued.sum();
+    }
+
+    public long getWritesCoalesced() {
+        return writesCoalesced.sum();
+    }
+
+    public long getWritesFlushed() {
+        return writesFlushed.sum();
+    }
+
+    public long getWriteFlushes() {
+        return writeFlushes.sum();
+    }
+
+    /**
+     * Records a recipe payload written in the compressed format.
+     *
+     * @param plainBytes  the size the plain format would have taken
+     * @param storedBytes the compressed size
+     */
+    public void recordPayloadCompressed(int plainBytes, int storedBytes) {
+        payloadsCompressed.increment();
+        payloadPlainBytes.add(plainBytes);
+        payloadStoredBytes.add(storedBytes);
+    }
+
+    /**
+     * Records a compressed recipe payload being read.
+     *
+     * @param nanos time spent undoing the compression, excluding item deserialization
+     */
+    public void recordPayloadDecompressed(long nanos) {
+        payloadsDecompressed.increment();
+        payloadDecompressNanos.add(nanos);
+    }
+
+    public long getPayloadsCompressed() {
+        return payloadsCompressed.sum();
+    }
+
+    public long getPayloadPlainBytes() {
+        return payloadPlainBytes.sum();
+    }
+
+    public long getPayloadStoredBytes() {
+        return payloadStoredBytes.sum();
+    }
+
+    /**
+     * Gets the share of bytes saved by compression across compressed payloads, in percent.
+     */
+    public double getPayloadSavedPercent() {
+        long plain = payloadPlainBytes.sum();
+        return plain == 0 ? 0 : 100.0 * (plain - payloadStoredBytes.sum()) / plain;
+    }
+
+    public long getPayloadsDecompressed() {
+        return payloadsDecompressed.sum();
+    }
+
+    /**
+     * Gets the average cost of undoing compression per payload read, in microseconds.
+     */
+    public double getAverageDecompressMicros() {
+        long reads = payloadsDecompressed.sum();
+        return reads == 0 ? 0 : (double) payloadDecompressNanos.sum() / reads / TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
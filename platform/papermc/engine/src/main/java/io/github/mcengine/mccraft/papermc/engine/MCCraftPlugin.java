@@ -2,20 +2,25 @@ package io.github.mcengine.mccraft.papermc.engine;
 
 import io.github.mcengine.mccraft.api.database.IMCCraftDB;
 import io.github.mcengine.mccraft.common.MCCraftProvider;
+import io.github.mcengine.mccraft.common.cache.RecipeCache;
 import io.github.mcengine.mccraft.common.command.MCCraftCommandManager;
 import io.github.mcengine.mccraft.common.command.MCCraftTabCompleter;
 import io.github.mcengine.mccraft.common.command.util.HandleCreate;
 import io.github.mcengine.mccraft.common.command.util.HandleEditor;
 import io.github.mcengine.mccraft.common.command.util.HandleGet;
 import io.github.mcengine.mccraft.common.command.util.HandleHelp;
+import io.github.mcengine.mccraft.common.command.util.HandleReload;
+import io.github.mcengine.mccraft.common.command.util.HandleStats;
 import io.github.mcengine.mccraft.common.command.util.HandleType;
 import io.github.mcengine.mccraft.common.database.MCCraftMySQL;
 import io.github.mcengine.mccraft.common.database.MCCraftSQLite;
+import io.github.mcengine.mccraft.common.gui.CraftingGUI;
 import io.github.mcengine.mccraft.common.listener.CraftingGUIListener;
 import io.github.mcengine.mccraft.common.listener.EditorListGUIListener;
 import io.github.mcengine.mccraft.common.listener.HeadItemInteractListener;
 import io.github.mcengine.mccraft.common.listener.ItemDropProtectionListener;
 import io.github.mcengine.mccraft.common.listener.MCCraftListenerManager;
+import io.github.mcengine.mccraft.common.util.ItemSerializer;
 import io.github.mcengine.mcextension.common.MCExtensionManager;
 import org.bukkit.Bukkit;
 import org.bukkit.command.PluginCommand;
@@ -59,6 +64,7 @@ public class MCCraftPlugin extends JavaPlugin {
         this.executor = setupExecutor();
 
         // 2. Initialize Database
+        ItemSerializer.setCompression(getConfig().getBoolean("db.compression", false));
         IMCCraftDB db = setupDatabase();
 
         // 3. Initialize Command & Listener Managers
@@ -67,6 +73,9 @@ public class MCCraftPlugin extends JavaPlugin {
 
         // 4. Create Provider (singleton)
         this.provider = new MCCraftProvider(db, executor, commandManager, listenerManager);
+        this.provider.setLogger(getLogger());
+        this.provider.configureWriteBehind(getConfig().getLong("db.write-behind.flush-interval-ms", 0),
+                getConfig().getInt("db.write-behind.max-pending", 64));
 
         // 5. Register Commands
         commandManager.register("help", new HandleHelp(commandManager));
@@ -74,6 +83,8 @@ public class MCCraftPlugin extends JavaPlugin {
         commandManager.register("create", new HandleCreate());
         commandManager.register("get", new HandleGet());
         commandManager.register("editor", new HandleEditor());
+        commandManager.register("reload", new HandleReload());
+        commandManager.register("stats", new HandleStats());
 
         PluginCommand craftCommand = getCommand("craft");
         if (craftCommand != null) {
@@ -82,12 +93,24 @@ public class MCCraftPlugin extends JavaPlugin {
         }
 
         // 5.5 Populate in-memory cache from database
+        RecipeCache.getInstance().setDecodedCapacity(getConfig().getInt("cache.decoded-recipes", 512));
+        RecipeCache.getInstance().setMaxWeight(getConfig().getLong("cache.max-weight-kb", 0) * 1024);
+        RecipeCache.getInstance().setAuthoritative(getConfig().getBoolean("cache.authoritative", true));
         this.provider.populateCache().exceptionally(ex -> {
             getLogger().severe("Failed to populate recipe cache: " + ex.getMessage());
             return null;
         });
 
+        // 5.6 Convert recipes stored as Base64 text by older versions in the background
+        this.provider.migrateLegacyItems(getConfig().getInt("db.migration.batch-size", 200)).thenAccept(batches -> {
+            if (batches > 0) getLogger().info("Converted legacy recipe rows to binary storage.");
+        }).exceptionally(ex -> {
+            getLogger().severe("Failed to convert legacy recipe rows: " + ex.getMessage());
+            return null;
+        });
+
         // 6. Register Listeners
+        CraftingGUI.setPoolInventories(getConfig().getBoolean("gui.pool-inventories", false));
         listenerManager.register(new CraftingGUIListener());
         listenerManager.register(new EditorListGUIListener());
         listenerManager.register(new ItemDropProtectionListener());
@@ -144,7 +167,7 @@ public class MCCraftPlugin extends JavaPlugin {
             extensionManager.disableAllExtensions(this, this.executor);
         }
 
-        // Shutdown provider (closes DB)
+        // Shutdown provider (flushes queued writes, closes DB)
         if (provider != null) {
             provider.shutdown();
         }